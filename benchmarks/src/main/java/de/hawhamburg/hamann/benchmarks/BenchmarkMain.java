@@ -0,0 +1,56 @@
+package de.hawhamburg.hamann.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Startet die Benchmarks mit dem GC-Profiler und rechnet die Ergebnisse je
+ * Eingabebyte um: Durchsatz in MB/s, Zeit in ns/Byte und allozierte Bytes je Byte.
+ * <p>
+ * Die Argumente sind die üblichen JMH-Optionen, z.B. {@code Lzw -p corpus=PDF,TEXT -p size=65536}.
+ */
+public final class BenchmarkMain {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Vom GC-Profiler gemessene Allokation je Aufruf in Bytes.
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        System.out.printf("%n%-32s %-7s %8s %5s %10s %9s %9s%n",
+                "Benchmark", "Korpus", "Größe", "Bits", "MB/s", "ns/Byte", "B/Byte");
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            if (params.getMode() != Mode.AverageTime) continue;
+            // Nur die mittlere Zeit je Aufruf lässt sich auf Bytes umrechnen.
+
+            int size = Integer.parseInt(params.getParam("size"));
+            double nanos = result.getPrimaryResult().getScore() * params.getTimeUnit().toNanos(1);
+            Result allocation = result.getSecondaryResults().get(ALLOCATION);
+            String bits = params.getParam("dictBitSize");
+            String benchmark = params.getBenchmark();
+            benchmark = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+
+            System.out.printf("%-32s %-7s %8d %5s %10.1f %9.2f %9s%n",
+                    benchmark, params.getParam("corpus"), size, bits == null ? "-" : bits,
+                    size * 1e3 / nanos, nanos / size,
+                    allocation == null ? "-" : String.format("%.3f", allocation.getScore() / size));
+        }
+    }
+}
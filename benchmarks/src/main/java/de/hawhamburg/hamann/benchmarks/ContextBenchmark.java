@@ -0,0 +1,73 @@
+package de.hawhamburg.hamann.benchmarks;
+
+import de.hawhamburg.hamann.codec.Codec;
+import de.hawhamburg.hamann.codec.CodecContext;
+import de.hawhamburg.hamann.codec.Codecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Viele kleine Nachrichten: ein wiederverwendeter {@link CodecContext} gegenüber
+ * den ByteBuffer-Methoden des {@link Codec}, die jedes Mal neu anlegen.
+ * Der Unterschied zeigt sich vor allem in der Spalte B/Byte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark {
+    @Param({"huffman", "lzw"})
+    public String codec;
+
+    @Param({"TEXT", "JSON"})
+    public Corpus corpus;
+
+    @Param({"1024", "16384"})
+    public int size;
+
+    private Codec oneShot;
+    private CodecContext context;
+    private ByteBuffer data;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        oneShot = Codecs.byName(codec);
+        context = oneShot.newContext();
+        data = ByteBuffer.wrap(corpus.create(size));
+        encoded = oneShot.encode(data.duplicate());
+    }
+
+    @Benchmark
+    public int encodeOneShot() throws IOException {
+        return oneShot.encode(data.duplicate()).remaining();
+    }
+
+    @Benchmark
+    public int decodeOneShot() throws IOException {
+        return oneShot.decode(encoded.duplicate()).remaining();
+    }
+
+    @Benchmark
+    public int encodeContext() throws IOException {
+        data.rewind();
+        ByteBuffer result = context.encode(data);
+        int length = result.remaining();
+        context.release(result);
+        return length;
+    }
+
+    @Benchmark
+    public int decodeContext() throws IOException {
+        encoded.rewind();
+        ByteBuffer result = context.decode(encoded);
+        int length = result.remaining();
+        context.release(result);
+        return length;
+    }
+}
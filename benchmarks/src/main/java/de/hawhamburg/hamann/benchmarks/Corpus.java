@@ -0,0 +1,93 @@
+package de.hawhamburg.hamann.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Eingabedaten der Benchmarks. Text, JSON und Zufallsbytes werden mit festem
+ * Startwert erzeugt, PDF und PNG sind die Beispieldateien aus {@code resources/huffman}.
+ * Ist eine Datei kürzer als die verlangte Größe, wird sie wiederholt; ab der
+ * zweiten Kopie findet LZW dann längere Treffer als in echten Daten.
+ */
+public enum Corpus {
+    TEXT {
+        @Override
+        byte[] create(int size) {
+            String[] words = {"der", "die", "das", "und", "Wörterbuch", "Huffman", "Baum", "Code",
+                    "Zeichen", "wird", "mit", "einem", "Algorithmus", "kodiert", "Daten", "Länge"};
+            Random random = new Random(SEED);
+            StringBuilder text = new StringBuilder(size + 32);
+            while (text.length() < size) {
+                text.append(words[random.nextInt(words.length)]);
+                text.append(random.nextInt(12) == 0 ? ".\n" : " ");
+            }
+            return truncate(text.toString().getBytes(StandardCharsets.UTF_8), size);
+        }
+    },
+    JSON {
+        @Override
+        byte[] create(int size) {
+            String[] names = {"Anna", "Ben", "Clara", "David", "Emma", "Felix"};
+            Random random = new Random(SEED);
+            StringBuilder json = new StringBuilder(size + 128).append("[\n");
+            for (int id = 0; json.length() < size; id++) {
+                json.append(String.format(Locale.ROOT, "  {\"id\": %d, \"name\": \"%s\", \"score\": %.3f, \"active\": %b},%n",
+                        id, names[random.nextInt(names.length)], random.nextDouble() * 100, random.nextBoolean()));
+            }
+            return truncate(json.toString().getBytes(StandardCharsets.UTF_8), size);
+        }
+    },
+    PDF {
+        @Override
+        byte[] create(int size) {
+            return repeat(resource("ad_7_DynamischesProgrammieren.pdf"), size);
+        }
+    },
+    PNG {
+        @Override
+        byte[] create(int size) {
+            return repeat(resource("1_Fork.png"), size);
+        }
+    },
+    RANDOM {
+        @Override
+        byte[] create(int size) {
+            byte[] data = new byte[size];
+            new Random(SEED).nextBytes(data);
+            return data;
+        }
+    };
+
+    private static final long SEED = 42;
+
+    /**
+     * Liefert genau {@code size} Bytes dieses Korpus, bei jedem Aufruf dieselben.
+     */
+    abstract byte[] create(int size);
+
+    private static byte[] resource(String name) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) throw new IllegalStateException("Beispieldatei fehlt: " + name);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] repeat(byte[] data, int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        while (out.size() < size) out.write(data, 0, Math.min(data.length, size - out.size()));
+        return out.toByteArray();
+    }
+
+    private static byte[] truncate(byte[] data, int size) {
+        byte[] result = new byte[size];
+        System.arraycopy(data, 0, result, 0, size);
+        return result;
+    }
+}
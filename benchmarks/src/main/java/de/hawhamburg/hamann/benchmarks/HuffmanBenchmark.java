@@ -0,0 +1,56 @@
+package de.hawhamburg.hamann.benchmarks;
+
+import de.hawhamburg.hamann.huffman.BlockHuffman;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kodieren und Dekodieren mit {@link BlockHuffman} im Speicher.
+ * Der Ausgabepuffer wird wiederverwendet, damit die gemessene Allokationsrate
+ * nur vom Codec stammt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HuffmanBenchmark {
+    @Param({"TEXT", "JSON", "PDF", "PNG", "RANDOM"})
+    public Corpus corpus;
+
+    @Param({"65536", "1048576"})
+    public int size;
+
+    private BlockHuffman huffman;
+    private byte[] data;
+    private byte[] encoded;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws IOException {
+        huffman = new BlockHuffman();
+        data = corpus.create(size);
+        out = new ByteArrayOutputStream(2 * size);
+        encode();
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        out.reset();
+        huffman.encode(new ByteArrayInputStream(data), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        out.reset();
+        huffman.decode(new ByteArrayInputStream(encoded), out);
+        return out.size();
+    }
+}
@@ -0,0 +1,80 @@
+package de.hawhamburg.hamann.benchmarks;
+
+import de.hawhamburg.hamann.huffman.LzwHuffman;
+import de.hawhamburg.hamann.lzw.LZW;
+import de.hawhamburg.hamann.lzw.LzwInputStream;
+import de.hawhamburg.hamann.lzw.LzwOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kodieren und Dekodieren mit {@link LzwOutputStream}/{@link LzwInputStream} und
+ * mit {@link LzwHuffman}, jeweils im Speicher und mit der Richtlinie RESET.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LzwBenchmark {
+    @Param({"TEXT", "JSON", "PDF", "PNG", "RANDOM"})
+    public Corpus corpus;
+
+    @Param({"65536", "1048576"})
+    public int size;
+
+    @Param({"10", "12", "16"})
+    public int dictBitSize;
+
+    private LzwHuffman lzwHuffman;
+    private byte[] data;
+    private byte[] encoded;
+    private byte[] encodedWithHuffman;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws IOException {
+        lzwHuffman = new LzwHuffman(dictBitSize, LZW.ResetPolicy.RESET);
+        data = corpus.create(size);
+        out = new ByteArrayOutputStream(2 * size);
+        encode();
+        encoded = out.toByteArray();
+        encodeWithHuffman();
+        encodedWithHuffman = out.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        out.reset();
+        try (LzwOutputStream lzwOut = new LzwOutputStream(out, dictBitSize)) {
+            lzwOut.write(data);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        out.reset();
+        new LzwInputStream(new ByteArrayInputStream(encoded), dictBitSize).transferTo(out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int encodeWithHuffman() throws IOException {
+        out.reset();
+        lzwHuffman.encode(new ByteArrayInputStream(data), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int decodeWithHuffman() throws IOException {
+        out.reset();
+        lzwHuffman.decode(new ByteArrayInputStream(encodedWithHuffman), out);
+        return out.size();
+    }
+}
@@ -0,0 +1,152 @@
+package de.hawhamburg.hamann.bitio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Liest Bits (höchstwertiges Bit zuerst) aus einem Eingabestrom oder direkt
+ * aus einem {@link ByteBuffer}.
+ * Im Gegensatz zu {@code BitInput} können hier mehrere Bits auf einmal
+ * angesehen ({@link #peekBits(int)}) und danach übersprungen werden,
+ * was der tabellengesteuerte Decoder benötigt.
+ * <p>
+ * Am Ende der Daten wird keine Ausnahme geworfen, sondern mit 0-Bits aufgefüllt;
+ * ob schon Füllbits gelesen wurden, zeigt {@link #pastEnd()}. Vom Strom wird
+ * blockweise vorausgelesen, aber erst, wenn die gepufferten Bits nicht reichen.
+ * <p>
+ * Gemeinsame Bit-Eingabe von Huffman und LZW. Nicht threadsicher.
+ */
+public final class BitReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Größe des internen Byte-Puffers.
+
+    private final InputStream in;
+    // Quelle der Bytes, oder null, wenn nur aus dem Puffer gelesen wird.
+
+    private ByteBuffer buffer;
+    // Byte-Puffer, damit nicht jedes Byte einzeln vom Strom gelesen wird.
+
+    private long bitBuffer;
+    // Bereits gelesene Bits, rechtsbündig gespeichert.
+
+    private int bitCount;
+    // Anzahl der gültigen Bits in bitBuffer.
+
+    private long loadedBytes;
+    // Bytes, die bisher in bitBuffer übernommen wurden, ohne Füllbytes.
+
+    private int paddingBits;
+    // Füllbits am Ende von bitBuffer, die hinter dem Ende der Daten liegen.
+
+    public BitReader(InputStream in) {
+        this.in = in;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Liest die Bytes zwischen Position und Limit des Puffers,
+     * z.B. aus einem {@link java.nio.MappedByteBuffer}.
+     */
+    public BitReader(ByteBuffer source) {
+        this.in = null;
+        this.buffer = source;
+    }
+
+    /**
+     * Beginnt neu mit den Bytes zwischen Position und Limit von {@code source}.
+     * Nur für einen Reader, der direkt aus einem Puffer liest.
+     */
+    public void reset(ByteBuffer source) {
+        if (in != null) throw new IllegalStateException("Reader liest aus einem Strom");
+        buffer = source;
+        bitBuffer = 0;
+        bitCount = 0;
+        loadedBytes = 0;
+        paddingBits = 0;
+    }
+
+    /**
+     * Liefert die nächsten {@code n} Bits (maximal 32), ohne sie zu verbrauchen.
+     * Hinter dem Ende des Stroms wird mit 0-Bits aufgefüllt.
+     */
+    public int peekBits(int n) throws IOException {
+        if (bitCount < n) refill(n);
+        return (int) ((bitBuffer >>> (bitCount - n)) & ((1L << n) - 1));
+    }
+
+    /**
+     * Verbraucht {@code n} Bits, die zuvor mit {@link #peekBits(int)} angesehen wurden.
+     */
+    public void skipBits(int n) {
+        bitCount -= n;
+    }
+
+    public int readBits(int n) throws IOException {
+        int value = peekBits(n);
+        skipBits(n);
+        return value;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readBits(1) == 1;
+    }
+
+    /**
+     * Überspringt die restlichen Bits des angefangenen Bytes.
+     *
+     * @return Anzahl der übersprungenen Bits.
+     */
+    public int align() {
+        int padding = bitCount & 7;
+        bitCount -= padding;
+        // bitBuffer enthält immer ganze Bytes, der Rest der Bits liegt also im angefangenen Byte.
+        return padding;
+    }
+
+    /**
+     * Ob bereits Bits hinter dem Ende der Daten verbraucht wurden.
+     */
+    public boolean pastEnd() {
+        return bitCount < paddingBits;
+    }
+
+    /**
+     * Anzahl der bisher verbrauchten Bits, ohne Füllbits hinter dem Ende.
+     */
+    public long bitPosition() {
+        return loadedBytes * 8 - Math.max(0, bitCount - paddingBits);
+    }
+
+    /**
+     * Anzahl der Bits, die ohne Lesen vom Eingabestrom verfügbar sind.
+     */
+    public long bufferedBits() {
+        return bitCount + 8L * buffer.remaining();
+    }
+
+    private void refill(int needed) throws IOException {
+        while (bitCount <= 56) {
+            if (!buffer.hasRemaining() && in != null && paddingBits == 0) {
+                if (bitCount >= needed) return;
+                // Vom Strom wird erst gelesen, wenn die Bits wirklich gebraucht werden,
+                // damit ein Live-Strom nicht auf Daten wartet, die noch gar nicht gesendet wurden.
+
+                int n = in.read(buffer.array(), 0, buffer.capacity());
+                buffer.position(0);
+                buffer.limit(Math.max(0, n));
+            }
+            if (!buffer.hasRemaining()) {
+                bitBuffer <<= 8;
+                bitCount += 8;
+                paddingBits += 8;
+                // Ende des Stroms: mit 0-Bits auffüllen.
+                continue;
+            }
+            bitBuffer = (bitBuffer << 8) | (buffer.get() & 0xFF);
+            bitCount += 8;
+            loadedBytes++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package de.hawhamburg.hamann.bitio;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Schreibt Bits (höchstwertiges Bit zuerst) in einen Ausgabestrom oder direkt
+ * in einen {@link ByteBuffer}.
+ * Die Bits werden in einem 64-Bit-Akkumulator gesammelt und immer als ganzes
+ * Wort in den Puffer übernommen, so dass ein Code mit einem einzigen
+ * Aufruf von {@link #writeBits(long, int)} geschrieben wird.
+ * <p>
+ * Gemeinsame Bit-Ausgabe von Huffman und LZW. Nicht threadsicher.
+ */
+public final class BitWriter implements Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Größe des internen Byte-Puffers.
+
+    private final OutputStream out;
+    // Ziel der Bytes, oder null, wenn direkt in den Puffer geschrieben wird.
+
+    private ByteBuffer buffer;
+    // Puffer für fertige Bytes (Big Endian).
+
+    private int start;
+    // Position im Puffer, an der das Schreiben begonnen hat.
+
+    private long bytesWritten;
+    // Bytes, die schon an den Ausgabestrom übergeben wurden.
+
+    private long bitBuffer;
+    // Noch nicht übernommene Bits, rechtsbündig gespeichert.
+
+    private int bitCount;
+    // Anzahl der gültigen Bits in bitBuffer.
+
+    public BitWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.start = 0;
+    }
+
+    /**
+     * Schreibt direkt in den Puffer ab dessen aktueller Position, z.B. in einen
+     * Direct Buffer. Ist der Puffer voll, wird eine
+     * {@link java.nio.BufferOverflowException} geworfen.
+     */
+    public BitWriter(ByteBuffer target) {
+        this.out = null;
+        this.buffer = target;
+        this.start = target.position();
+    }
+
+    /**
+     * Beginnt neu am Anfang von {@code target}, z.B. für die nächste Nachricht.
+     * Nur für einen Writer, der direkt in einen Puffer schreibt.
+     */
+    public void reset(ByteBuffer target) {
+        if (out != null) throw new IllegalStateException("Writer schreibt in einen Strom");
+        buffer = target;
+        start = target.position();
+        bytesWritten = 0;
+        bitBuffer = 0;
+        bitCount = 0;
+    }
+
+    /**
+     * Schreibt die unteren {@code n} Bits (0 bis 64) von {@code value}.
+     * Höhere Bits von {@code value} müssen 0 sein.
+     */
+    public void writeBits(long value, int n) throws IOException {
+        int free = 64 - bitCount;
+        if (n < free) {
+            bitBuffer = (bitBuffer << n) | value;
+            bitCount += n;
+            return;
+        }
+        int rest = n - free;
+        writeWord((bitBuffer << free) | (value >>> rest));
+        // Der Akkumulator ist voll und wird als ganzes Wort übernommen.
+
+        bitBuffer = rest == 0 ? 0 : value & ((1L << rest) - 1);
+        bitCount = rest;
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        writeBits(value ? 1 : 0, 1);
+    }
+
+    /**
+     * Füllt mit 0-Bits bis zur nächsten Byte-Grenze auf.
+     *
+     * @return Anzahl der Füllbits.
+     */
+    public int align() throws IOException {
+        int padding = (8 - (bitCount & 7)) & 7;
+        writeBits(0, padding);
+        return padding;
+    }
+
+    /**
+     * Anzahl aller bisher geschriebenen Bits, einschließlich der Füllbits.
+     */
+    public long bitPosition() {
+        return (bytesWritten + buffer.position() - start) * 8 + bitCount;
+    }
+
+    /**
+     * Übernimmt alle vollständigen Bytes in den Puffer und schreibt ihn in den
+     * Ausgabestrom. Bits eines angefangenen Bytes bleiben im Akkumulator.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer.remaining() < 8) writeBuffer();
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            buffer.put((byte) (bitBuffer >>> bitCount));
+        }
+        bitBuffer &= (1L << bitCount) - 1;
+        if (out != null) {
+            writeBuffer();
+            out.flush();
+        }
+    }
+
+    private void writeWord(long word) throws IOException {
+        if (buffer.remaining() < 8) writeBuffer();
+        buffer.putLong(word);
+    }
+
+    private void writeBuffer() throws IOException {
+        if (out == null) return;
+        out.write(buffer.array(), 0, buffer.position());
+        bytesWritten += buffer.position();
+        buffer.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package de.hawhamburg.hamann.codec;
+
+import de.hawhamburg.hamann.lzw.BlockLzw;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LZW in unabhängigen, parallel kodierten Blöcken (siehe {@link BlockLzw}).
+ */
+public final class BlockLzwCodec implements Codec {
+    public static final int ID = 3;
+
+    private final BlockLzw lzw;
+
+    public BlockLzwCodec() {
+        this(new BlockLzw(LzwCodec.DEFAULT_DICT_BIT_SIZE));
+    }
+
+    public BlockLzwCodec(BlockLzw lzw) {
+        this.lzw = lzw;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "lzw-blocks";
+    }
+
+    @Override
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        lzw.encode(in, out);
+    }
+
+    @Override
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        lzw.decode(in, out);
+    }
+}
@@ -0,0 +1,65 @@
+package de.hawhamburg.hamann.codec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vorrat an Heap-Puffern in Größenklassen (Zweierpotenzen), damit bei vielen
+ * Nachrichten nicht für jede ein neuer Puffer angelegt wird. Freigegebene Puffer
+ * werden in ihrer Klasse abgelegt, je Klasse höchstens {@link #MAX_FREE} Stück.
+ * <p>
+ * Nicht threadsicher: Gedacht ist ein Vorrat je Thread, z.B. in einem {@link CodecContext}.
+ */
+public final class BufferPool {
+    public static final int MIN_CLASS_BITS = 10;
+    // Kleinste Größenklasse: 1 KB.
+
+    public static final int MAX_CLASS_BITS = 30;
+    // Größte Größenklasse: 1 GB; größere Puffer werden nicht verwaltet.
+
+    public static final int MAX_FREE = 4;
+    // Freie Puffer je Größenklasse.
+
+    private final List<ArrayDeque<ByteBuffer>> free = new ArrayList<>(MAX_CLASS_BITS - MIN_CLASS_BITS + 1);
+    // Freie Puffer je Größenklasse, beginnend bei MIN_CLASS_BITS.
+
+    public BufferPool() {
+        for (int bits = MIN_CLASS_BITS; bits <= MAX_CLASS_BITS; bits++) {
+            free.add(new ArrayDeque<>(MAX_FREE));
+        }
+    }
+
+    /**
+     * Liefert einen leeren Puffer mit mindestens {@code capacity} Bytes;
+     * Position 0, Limit gleich der Kapazität.
+     */
+    public ByteBuffer acquire(int capacity) {
+        int bits = classBits(capacity);
+        if (bits > MAX_CLASS_BITS) return ByteBuffer.allocate(capacity);
+        ByteBuffer buffer = free.get(bits - MIN_CLASS_BITS).poll();
+        return buffer == null ? ByteBuffer.allocate(1 << bits) : buffer.clear();
+    }
+
+    /**
+     * Gibt einen mit {@link #acquire(int)} geholten Puffer zurück. Andere Puffer
+     * und solche, für die in ihrer Klasse kein Platz ist, werden verworfen.
+     * Danach darf der Puffer nicht mehr benutzt werden.
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int bits = classBits(capacity);
+        if (bits > MAX_CLASS_BITS || capacity != 1 << bits || !buffer.hasArray() || buffer.arrayOffset() != 0) return;
+        ArrayDeque<ByteBuffer> queue = free.get(bits - MIN_CLASS_BITS);
+        if (queue.size() < MAX_FREE) queue.push(buffer);
+    }
+
+    /**
+     * Exponent der kleinsten Größenklasse, in die {@code capacity} Bytes passen.
+     */
+    private static int classBits(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Negative Kapazität: " + capacity);
+        return Math.max(MIN_CLASS_BITS, 32 - Integer.numberOfLeadingZeros(Math.max(0, capacity - 1)));
+    }
+}
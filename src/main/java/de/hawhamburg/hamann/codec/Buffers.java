@@ -0,0 +1,38 @@
+package de.hawhamburg.hamann.codec;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Hilfsfunktionen, um {@link ByteBuffer} mit Strömen zu verbinden.
+ */
+final class Buffers {
+    private Buffers() {
+    }
+
+    /**
+     * Liest die Bytes zwischen Position und Limit; die Position des Puffers wandert mit.
+     */
+    static InputStream inputStream(ByteBuffer src) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return src.hasRemaining() ? src.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) return 0;
+                if (!src.hasRemaining()) return -1;
+                int n = Math.min(len, src.remaining());
+                src.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return src.remaining();
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package de.hawhamburg.hamann.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Gemeinsame Schnittstelle aller Kompressionsverfahren. Ein Codec erzeugt seine
+ * eigenen Nutzdaten ohne Rahmen; Prüfsumme, Originalgröße und die Kennung des
+ * Codecs schreibt {@link Container}. Die Nutzdaten müssen alles enthalten, was
+ * zum Dekodieren nötig ist (z.B. die Wörterbuchgröße), damit ein Codec allein
+ * über seine Kennung ausgewählt werden kann.
+ * <p>
+ * Weitere Codecs werden über {@link Codecs#register(Codec)} oder als Dienst
+ * für {@link java.util.ServiceLoader} bekannt gemacht.
+ */
+public interface Codec {
+    /**
+     * Kennung im Container-Header, 1 bis 255, für jeden Codec eindeutig.
+     */
+    int id();
+
+    /**
+     * Name für Auswahl und Ausgaben, z.B. {@code "lzw"}.
+     */
+    String name();
+
+    /**
+     * Kodiert den gesamten Eingabestrom. Keiner der Ströme wird geschlossen.
+     */
+    void encode(InputStream in, OutputStream out) throws IOException;
+
+    /**
+     * Dekodiert mit {@link #encode(InputStream, OutputStream)} erzeugte Nutzdaten.
+     * Keiner der Ströme wird geschlossen. Der Codec darf über das Ende seiner
+     * Nutzdaten hinaus aus {@code in} lesen; im Container stehen sie deshalb zuletzt.
+     */
+    void decode(InputStream in, OutputStream out) throws IOException;
+
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src}, deren Position
+     * danach am Limit steht.
+     */
+    default ByteBuffer encode(ByteBuffer src) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(src.remaining() / 2 + 16);
+        encode(Buffers.inputStream(src), out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * Dekodiert die Nutzdaten zwischen Position und Limit von {@code src}.
+     */
+    default ByteBuffer decode(ByteBuffer src) throws IOException {
+        int initial = (int) Math.min(Integer.MAX_VALUE - 8, src.remaining() * 2L + 16);
+        // Nur die Anfangsgröße; ohne long würde sie ab 1 GB Nutzdaten negativ.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(initial);
+        decode(Buffers.inputStream(src), out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * Liefert einen neuen {@link CodecContext} für viele Nachrichten auf einem Thread.
+     * Ohne eigene Implementierung leitet er an {@link #encode(ByteBuffer)} und
+     * {@link #decode(ByteBuffer)} weiter und legt damit je Nachricht neue Puffer an.
+     */
+    default CodecContext newContext() {
+        Codec codec = this;
+        return new CodecContext() {
+            @Override
+            public ByteBuffer encode(ByteBuffer src) throws IOException {
+                return codec.encode(src);
+            }
+
+            @Override
+            public ByteBuffer decode(ByteBuffer src) throws IOException {
+                return codec.decode(src);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+            }
+        };
+    }
+}
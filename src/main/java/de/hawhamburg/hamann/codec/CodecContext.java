@@ -0,0 +1,34 @@
+package de.hawhamburg.hamann.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wiederverwendbarer Zustand eines {@link Codec} für viele kurze Nachrichten,
+ * z.B. je Anfrage in einem Server. Ein Kontext behält Wörterbücher, Tabellen und
+ * Puffer zwischen den Aufrufen; ein Codec mit eigenem Kontext legt im
+ * eingeschwungenen Zustand keine Objekte mehr an. Die Ergebnisse sind dieselben
+ * Nutzdaten wie bei {@link Codec#encode(ByteBuffer)} und {@link Codec#decode(ByteBuffer)}.
+ * <p>
+ * Nicht threadsicher: Jeder Thread holt sich mit {@link Codec#newContext()} seinen eigenen.
+ */
+public interface CodecContext {
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src}, deren Position
+     * danach am Limit steht. Das Ergebnis liegt zwischen Position und Limit des
+     * gelieferten Puffers und gilt, bis er mit {@link #release(ByteBuffer)} zurückgegeben wird.
+     */
+    ByteBuffer encode(ByteBuffer src) throws IOException;
+
+    /**
+     * Dekodiert die Nutzdaten zwischen Position und Limit von {@code src}; für das
+     * Ergebnis gilt dasselbe wie bei {@link #encode(ByteBuffer)}.
+     */
+    ByteBuffer decode(ByteBuffer src) throws IOException;
+
+    /**
+     * Gibt einen von diesem Kontext gelieferten Puffer zur Wiederverwendung zurück.
+     * Puffer, die nicht zurückgegeben werden, räumt der Garbage Collector auf.
+     */
+    void release(ByteBuffer buffer);
+}
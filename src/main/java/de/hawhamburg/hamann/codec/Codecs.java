@@ -0,0 +1,98 @@
+package de.hawhamburg.hamann.codec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verzeichnis aller bekannten Codecs, nach Kennung und Name.
+ * Die eingebauten Codecs sind immer vorhanden; weitere kommen über
+ * {@link ServiceLoader} ({@code META-INF/services/de.hawhamburg.hamann.codec.Codec})
+ * oder {@link #register(Codec)} hinzu.
+ */
+public final class Codecs {
+    private static final System.Logger LOG = System.getLogger(Codecs.class.getName());
+    // Vor dem static-Block, der beim Laden der Anbieter schon protokolliert.
+
+    private static final Map<Integer, Codec> BY_ID = new ConcurrentHashMap<>();
+    private static final Map<String, Codec> BY_NAME = new ConcurrentHashMap<>();
+
+    static {
+        register(new HuffmanCodec());
+        register(new LzwCodec());
+        register(new BlockLzwCodec());
+        register(new LzwHuffmanCodec());
+        load(ServiceLoader.load(Codec.class).iterator());
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Macht einen Codec bekannt. Kennung und Name dürfen noch nicht vergeben sein.
+     */
+    public static synchronized void register(Codec codec) {
+        if (codec.id() < 1 || codec.id() > 255) {
+            throw new IllegalArgumentException("Ungültige Codec-Kennung: " + codec.id());
+        }
+        if (BY_ID.containsKey(codec.id()) || BY_NAME.containsKey(codec.name())) {
+            throw new IllegalArgumentException("Codec bereits registriert: " + codec.id() + "/" + codec.name());
+        }
+        BY_ID.put(codec.id(), codec);
+        BY_NAME.put(codec.name(), codec);
+    }
+
+    /**
+     * Registriert die Codecs aus {@code providers}. Ein fehlerhafter Anbieter (doppelte
+     * Kennung, nicht ladbare Klasse) wird übersprungen, damit die eingebauten und alle
+     * übrigen Codecs benutzbar bleiben. Übersprungene Anbieter werden als Warnung
+     * protokolliert.
+     */
+    static void load(Iterator<Codec> providers) {
+        while (true) {
+            try {
+                if (!providers.hasNext()) return;
+            } catch (ServiceConfigurationError e) {
+                LOG.log(System.Logger.Level.WARNING, "Codec-Anbieter werden nicht weiter geladen", e);
+                return;
+                // Ob der Iterator danach weiterkommt, ist nicht garantiert.
+            }
+            try {
+                register(providers.next());
+            } catch (ServiceConfigurationError | RuntimeException e) {
+                LOG.log(System.Logger.Level.WARNING, "Codec-Anbieter übersprungen", e);
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException wenn kein Codec diese Kennung hat.
+     */
+    public static Codec byId(int id) {
+        Codec codec = BY_ID.get(id);
+        if (codec == null) throw new IllegalArgumentException("Unbekannter Codec: " + id);
+        return codec;
+    }
+
+    /**
+     * @throws IllegalArgumentException wenn kein Codec diesen Namen hat.
+     */
+    public static Codec byName(String name) {
+        Codec codec = BY_NAME.get(name);
+        if (codec == null) throw new IllegalArgumentException("Unbekannter Codec: " + name);
+        return codec;
+    }
+
+    /**
+     * Alle registrierten Codecs, nach Kennung sortiert.
+     */
+    public static List<Codec> all() {
+        List<Codec> codecs = new ArrayList<>(BY_ID.values());
+        codecs.sort((a, b) -> Integer.compare(a.id(), b.id()));
+        return codecs;
+    }
+}
@@ -0,0 +1,196 @@
+package de.hawhamburg.hamann.codec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Einheitliches Dateiformat für alle Codecs. Der Header beschreibt die Daten
+ * vollständig, so dass der Decoder den Codec selbst auswählt und das Ergebnis prüft:
+ * <pre>
+ * Magic "HAWC" (32 Bit) | Version (8 Bit) | Codec-Kennung (8 Bit)
+ * | Originalgröße (64 Bit) | CRC32C der Originaldaten (32 Bit) | Nutzdaten des Codecs
+ * </pre>
+ * Die Nutzdaten reichen bis zum Ende des Containers. Da Größe und Prüfsumme vor
+ * den Nutzdaten stehen, muss der Encoder die Eingabe vorher kennen: Dateien
+ * werden dafür zweimal gelesen, Ströme vollständig in den Speicher.
+ * Dekodiert wird dagegen immer fortlaufend; Größe und Prüfsumme werden dabei
+ * mitgerechnet und am Ende verglichen.
+ */
+public final class Container {
+    public static final int MAGIC = 0x48415743;
+    // "HAWC" in ASCII.
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 18;
+    // Magic, Version, Kennung, Größe und Prüfsumme.
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Container() {
+    }
+
+    /**
+     * Inhalt des Headers.
+     */
+    public static final class Header {
+        public final int codecId;
+        public final long originalSize;
+        public final int crc;
+
+        Header(int codecId, long originalSize, int crc) {
+            this.codecId = codecId;
+            this.originalSize = originalSize;
+            this.crc = crc;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(codecId);
+            out.writeLong(originalSize);
+            out.writeInt(crc);
+        }
+    }
+
+    /**
+     * Liest und prüft den Header. Danach steht {@code in} am Anfang der Nutzdaten.
+     */
+    public static Header readHeader(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Kein Container (Magic fehlt)");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Nicht unterstützte Container-Version: " + version);
+        int codecId = data.readUnsignedByte();
+        long originalSize = data.readLong();
+        int crc = data.readInt();
+        if (originalSize < 0) throw new IOException("Ungültige Originalgröße: " + originalSize);
+        return new Header(codecId, originalSize, crc);
+    }
+
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src} in einen neuen Container.
+     */
+    public static ByteBuffer encode(Codec codec, ByteBuffer src) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(src.duplicate());
+        long size = src.remaining();
+        ByteBuffer payload = codec.encode(src);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + payload.remaining());
+        new Header(codec.id(), size, (int) crc.getValue()).write(new DataOutputStream(out));
+        Channels.newChannel(out).write(payload);
+        // Der Codec darf auch einen Direct Buffer liefern.
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * Dekodiert einen Container zwischen Position und Limit von {@code src}.
+     */
+    public static ByteBuffer decode(ByteBuffer src) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decode(Buffers.inputStream(src), out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * Kodiert den Eingabestrom. Er wird dazu vollständig in den Speicher gelesen;
+     * für große Dateien ist {@link #encode(Codec, Path, Path)} gedacht.
+     * Keiner der Ströme wird geschlossen.
+     */
+    public static void encode(Codec codec, InputStream in, OutputStream out) throws IOException {
+        ByteBuffer container = encode(codec, ByteBuffer.wrap(in.readAllBytes()));
+        out.write(container.array(), container.position(), container.remaining());
+        out.flush();
+    }
+
+    /**
+     * Kodiert eine Datei. Ein erster Durchlauf bestimmt Größe und Prüfsumme, der
+     * zweite kodiert; der Speicherbedarf hängt nicht von der Dateigröße ab.
+     */
+    public static void encode(Codec codec, Path input, Path output) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(input), BUFFER_SIZE);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), BUFFER_SIZE)) {
+            new Header(codec.id(), size, (int) crc.getValue()).write(new DataOutputStream(out));
+            codec.encode(in, out);
+        }
+    }
+
+    /**
+     * Dekodiert einen Container mit dem Codec aus seinem Header und prüft Größe
+     * und CRC32C des Ergebnisses. Keiner der Ströme wird geschlossen.
+     *
+     * @throws IOException auch, wenn die dekodierten Daten nicht zum Header passen.
+     */
+    public static Header decode(InputStream in, OutputStream out) throws IOException {
+        Header header = readHeader(in);
+        Codec codec;
+        try {
+            codec = Codecs.byId(header.codecId);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        CheckingOutputStream checked = new CheckingOutputStream(out);
+        codec.decode(in, checked);
+        checked.flush();
+        if (checked.size != header.originalSize) {
+            throw new IOException("Falsche Größe: " + checked.size + " statt " + header.originalSize + " Bytes");
+        }
+        if ((int) checked.crc.getValue() != header.crc) {
+            throw new IOException("Prüfsumme der dekodierten Daten stimmt nicht");
+        }
+        return header;
+    }
+
+    public static Header decode(Path input, Path output) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(input), BUFFER_SIZE);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), BUFFER_SIZE)) {
+            return decode(in, out);
+        }
+    }
+
+    /**
+     * Zählt die geschriebenen Bytes und bildet ihre Prüfsumme.
+     */
+    private static final class CheckingOutputStream extends FilterOutputStream {
+        final CRC32C crc = new CRC32C();
+        long size;
+
+        CheckingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            size += len;
+        }
+    }
+}
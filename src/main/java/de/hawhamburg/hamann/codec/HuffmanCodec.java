@@ -0,0 +1,78 @@
+package de.hawhamburg.hamann.codec;
+
+import de.hawhamburg.hamann.huffman.BlockHuffman;
+import de.hawhamburg.hamann.huffman.HuffmanContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Huffman-Kodierung in unabhängigen Blöcken mit je eigenem kanonischen Code
+ * (siehe {@link BlockHuffman}). Die Nutzdaten beschreiben sich selbst.
+ */
+public final class HuffmanCodec implements Codec {
+    public static final int ID = 1;
+
+    private final BlockHuffman huffman;
+
+    public HuffmanCodec() {
+        this(new BlockHuffman());
+    }
+
+    public HuffmanCodec(BlockHuffman huffman) {
+        this.huffman = huffman;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "huffman";
+    }
+
+    @Override
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        huffman.encode(in, out);
+    }
+
+    @Override
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        huffman.decode(in, out);
+    }
+
+    /**
+     * Kontext mit eigenem {@link HuffmanContext} und Puffern aus einem {@link BufferPool}.
+     */
+    @Override
+    public CodecContext newContext() {
+        HuffmanContext huffman = this.huffman.newContext();
+        BufferPool pool = new BufferPool();
+        return new CodecContext() {
+            @Override
+            public ByteBuffer encode(ByteBuffer src) throws IOException {
+                ByteBuffer dst = pool.acquire(huffman.maxEncodedLength(src.remaining()));
+                huffman.encode(src, dst);
+                return dst.flip();
+            }
+
+            @Override
+            public ByteBuffer decode(ByteBuffer src) throws IOException {
+                long length = huffman.decodedLength(src);
+                if (length > Integer.MAX_VALUE) throw new IOException("Zu groß für einen Puffer: " + length + " Bytes");
+                ByteBuffer dst = pool.acquire((int) length);
+                huffman.decode(src, dst);
+                return dst.flip();
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+                pool.release(buffer);
+            }
+        };
+    }
+}
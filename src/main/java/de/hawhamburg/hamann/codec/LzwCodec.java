@@ -0,0 +1,145 @@
+package de.hawhamburg.hamann.codec;
+
+import de.hawhamburg.hamann.lzw.LZW;
+import de.hawhamburg.hamann.lzw.LzwContext;
+import de.hawhamburg.hamann.lzw.LzwInputStream;
+import de.hawhamburg.hamann.lzw.LzwOutputStream;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * LZW über {@link LzwOutputStream} und {@link LzwInputStream}. Die Nutzdaten
+ * beginnen mit Wörterbuchgröße und Richtlinie (je 8 Bit), so dass der Decoder
+ * mit jeder Einstellung des Encoders zurechtkommt.
+ */
+public final class LzwCodec implements Codec {
+    public static final int ID = 2;
+    public static final int DEFAULT_DICT_BIT_SIZE = 16;
+
+    private static final LZW.ResetPolicy[] POLICIES = LZW.ResetPolicy.values();
+    // values() legt bei jedem Aufruf ein neues Array an.
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    // Größtes Byte-Array, das jede JVM anlegen kann.
+
+    private final int dictBitSize;
+    private final LZW.ResetPolicy resetPolicy;
+
+    public LzwCodec() {
+        this(DEFAULT_DICT_BIT_SIZE, LZW.ResetPolicy.RESET);
+    }
+
+    public LzwCodec(int dictBitSize, LZW.ResetPolicy resetPolicy) {
+        if (dictBitSize < LZW.MIN_DICT_BIT_SIZE || dictBitSize > LZW.MAX_DICT_BIT_SIZE) {
+            throw new IllegalArgumentException("Ungültige Wörterbuchgröße: " + dictBitSize + " Bit");
+        }
+        this.dictBitSize = dictBitSize;
+        this.resetPolicy = resetPolicy;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "lzw";
+    }
+
+    @Override
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        out.write(dictBitSize);
+        out.write(resetPolicy.ordinal());
+        OutputStream unclosed = new FilterOutputStream(out) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        // Das Schließen des LZW-Stroms schreibt den END-Code, der Zielstrom bleibt offen.
+
+        try (LzwOutputStream lzwOut = new LzwOutputStream(unclosed, dictBitSize, LZW.Dictionary.HASH, resetPolicy)) {
+            in.transferTo(lzwOut);
+        }
+    }
+
+    @Override
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        int width = in.read();
+        int policy = in.read();
+        checkHeader(width, policy);
+        new LzwInputStream(in, width, LZW.Dictionary.HASH, POLICIES[policy]).transferTo(out);
+    }
+
+    private static void checkHeader(int width, int policy) throws IOException {
+        if (width < LZW.MIN_DICT_BIT_SIZE || width > LZW.MAX_DICT_BIT_SIZE
+                || policy < 0 || policy >= POLICIES.length) {
+            throw new IOException("Ungültiger LZW-Header: " + width + "/" + policy);
+        }
+    }
+
+    /**
+     * Kontext mit wiederverwendeten Wörterbüchern ({@link LzwContext}) und Puffern aus
+     * einem {@link BufferPool}. Da die Länge der dekodierten Daten nicht in den
+     * Nutzdaten steht, wächst der Zielpuffer beim Dekodieren bei Bedarf; die
+     * Zwischengrößen kommen ebenfalls aus dem Vorrat.
+     */
+    @Override
+    public CodecContext newContext() {
+        BufferPool pool = new BufferPool();
+        return new CodecContext() {
+            private final LzwContext encoder = new LzwContext(dictBitSize, LZW.Dictionary.HASH, resetPolicy);
+            private LzwContext decoder = encoder;
+            private LZW.ResetPolicy decoderPolicy = resetPolicy;
+            // Für Nutzdaten mit anderen Einstellungen wird der Decoder ersetzt.
+
+            @Override
+            public ByteBuffer encode(ByteBuffer src) throws IOException {
+                ByteBuffer dst = pool.acquire(2 + LzwContext.maxEncodedLength(src.remaining(), dictBitSize));
+                dst.put((byte) dictBitSize).put((byte) resetPolicy.ordinal());
+                encoder.encode(src, dst);
+                return dst.flip();
+            }
+
+            @Override
+            public ByteBuffer decode(ByteBuffer src) throws IOException {
+                int width = src.hasRemaining() ? src.get() & 0xFF : -1;
+                int policy = src.hasRemaining() ? src.get() & 0xFF : -1;
+                checkHeader(width, policy);
+                if (decoder.dictBitSize() != width || decoderPolicy.ordinal() != policy) {
+                    decoderPolicy = POLICIES[policy];
+                    decoder = new LzwContext(width, LZW.Dictionary.HASH, decoderPolicy);
+                }
+
+                InputStream in = decoder.decoder(src);
+                ByteBuffer dst = pool.acquire((int) Math.min(MAX_ARRAY_LENGTH, 2L * src.remaining()));
+                int n;
+                while ((n = in.read(dst.array(), dst.position(), dst.remaining())) >= 0) {
+                    dst.position(dst.position() + n);
+                    if (dst.hasRemaining()) continue;
+                    if (dst.capacity() >= MAX_ARRAY_LENGTH) {
+                        if (in.read() < 0) break;
+                        throw new IOException("Dekodierte Daten passen nicht in einen ByteBuffer");
+                    }
+                    ByteBuffer larger = pool.acquire((int) Math.min(MAX_ARRAY_LENGTH, 2L * dst.capacity()));
+                    // Verdoppeln, aber nie über die größte mögliche Kapazität hinaus.
+                    larger.put(dst.flip());
+                    pool.release(dst);
+                    dst = larger;
+                }
+                src.position(src.limit());
+                return dst.flip();
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+                pool.release(buffer);
+            }
+        };
+    }
+}
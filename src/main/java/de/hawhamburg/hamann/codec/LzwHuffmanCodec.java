@@ -0,0 +1,45 @@
+package de.hawhamburg.hamann.codec;
+
+import de.hawhamburg.hamann.huffman.LzwHuffman;
+import de.hawhamburg.hamann.lzw.LZW;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LZW mit Huffman-kodierten Codes, beide Stufen in eigenen Threads (siehe {@link LzwHuffman}).
+ */
+public final class LzwHuffmanCodec implements Codec {
+    public static final int ID = 4;
+
+    private final LzwHuffman lzwHuffman;
+
+    public LzwHuffmanCodec() {
+        this(new LzwHuffman(LzwCodec.DEFAULT_DICT_BIT_SIZE, LZW.ResetPolicy.RESET));
+    }
+
+    public LzwHuffmanCodec(LzwHuffman lzwHuffman) {
+        this.lzwHuffman = lzwHuffman;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "lzw-huffman";
+    }
+
+    @Override
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        lzwHuffman.encode(in, out);
+    }
+
+    @Override
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        lzwHuffman.decode(in, out);
+    }
+}
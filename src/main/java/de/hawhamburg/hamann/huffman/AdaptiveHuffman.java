@@ -0,0 +1,210 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Adaptiver Huffman-Baum nach Faller, Gallager und Knuth (FGK).
+ * <p>
+ * Encoder und Decoder beginnen mit einem Baum, der nur aus dem NYT-Knoten
+ * ("not yet transmitted") besteht, und passen ihn nach jedem Zeichen auf
+ * dieselbe Weise an. Es gibt deshalb keinen Header und keinen zweiten Durchlauf:
+ * Jedes Zeichen kann sofort kodiert bzw. dekodiert werden. Ein neues Zeichen
+ * wird als Code des NYT-Knotens gefolgt von {@link #SYMBOL_BITS} Bits geschrieben.
+ * <p>
+ * Die Knoten liegen in Arrays, die Position ist die Nummer aus der
+ * Geschwister-Eigenschaft: Gewichte steigen mit der Position, Geschwister liegen
+ * nebeneinander (links vor rechts) und die Wurzel hat die höchste Position.
+ * Beim Tauschen zweier Knoten wandert nur ihr Inhalt, die Positionen bleiben.
+ */
+final class AdaptiveHuffman {
+    static final int EOF = 256;
+    // Zusätzliches Zeichen für das Ende des Stroms.
+
+    private static final int SYMBOLS = 257;
+    // 256 Bytes und EOF.
+
+    private static final int SYMBOL_BITS = 9;
+    // Bits für ein Zeichen, das zum ersten Mal vorkommt.
+
+    private static final int ROOT = 2 * SYMBOLS - 2;
+    // Position der Wurzel: SYMBOLS Blätter, NYT und die inneren Knoten.
+
+    static final int MAX_CODE_BITS = ROOT + SYMBOL_BITS;
+    // Obergrenze für die Bits eines Zeichens (Pfad zum NYT-Knoten plus Zeichen).
+
+    private static final int MAX_WEIGHT = 1 << 30;
+    // Erreicht die Wurzel dieses Gewicht, beginnen beide Seiten mit einem neuen Baum.
+
+    private final int[] weight = new int[ROOT + 1];
+    // Gewicht (Häufigkeit) jedes Knotens.
+
+    private final int[] parent = new int[ROOT + 1];
+    // Position des Elternknotens.
+
+    private final int[] child = new int[ROOT + 1];
+    // Position des linken Kindes, das rechte liegt direkt dahinter. -1 bei Blättern.
+
+    private final int[] symbol = new int[ROOT + 1];
+    // Zeichen eines Blattes.
+
+    private final int[] leaf = new int[SYMBOLS];
+    // Position des Blattes jedes Zeichens, -1 wenn es noch nicht vorkam.
+
+    private final int[] path = new int[ROOT + 1];
+    // Puffer für die Bits eines Pfades von unten nach oben.
+
+    private int nyt;
+    // Position des NYT-Knotens.
+
+    AdaptiveHuffman() {
+        reset();
+    }
+
+    /**
+     * Verwirft den Baum und beginnt wieder nur mit dem NYT-Knoten.
+     */
+    void reset() {
+        Arrays.fill(leaf, -1);
+        nyt = ROOT;
+        weight[ROOT] = 0;
+        child[ROOT] = -1;
+        symbol[ROOT] = -1;
+    }
+
+    /**
+     * Schreibt den Code für {@code c} (0 bis 255 oder {@link #EOF}) und passt den Baum an.
+     */
+    void encode(int c, BitWriter out) throws IOException {
+        int node = leaf[c];
+        if (node < 0) {
+            writePath(nyt, out);
+            out.writeBits(c, SYMBOL_BITS);
+            // Neues Zeichen: Escape über den NYT-Knoten, dann das Zeichen selbst.
+        } else {
+            writePath(node, out);
+        }
+        update(c);
+    }
+
+    /**
+     * Liest ein Zeichen (0 bis 255 oder {@link #EOF}) und passt den Baum an.
+     */
+    int decode(BitReader in) throws IOException {
+        int node = ROOT;
+        while (child[node] >= 0) {
+            node = child[node] + in.readBits(1);
+            // Bit 0 führt nach links, Bit 1 nach rechts.
+        }
+        int c = node == nyt ? in.readBits(SYMBOL_BITS) : symbol[node];
+        if (c >= SYMBOLS || (node == nyt && leaf[c] >= 0)) {
+            throw new IOException("Ungültiges Zeichen im adaptiven Huffman-Strom: " + c);
+        }
+        update(c);
+        return c;
+    }
+
+    private void writePath(int node, BitWriter out) throws IOException {
+        int depth = 0;
+        for (; node != ROOT; node = parent[node]) {
+            path[depth++] = node - child[parent[node]];
+            // 0 für das linke, 1 für das rechte Kind.
+        }
+
+        long bits = 0;
+        int count = 0;
+        while (depth > 0) {
+            bits = (bits << 1) | path[--depth];
+            if (++count == 63) {
+                out.writeBits(bits, count);
+                bits = 0;
+                count = 0;
+            }
+        }
+        out.writeBits(bits, count);
+        // Von der Wurzel zum Blatt, in möglichst wenigen Aufrufen.
+    }
+
+    private void update(int c) {
+        if (c == EOF && leaf[c] < 0) return;
+        // Nach dem Ende wird nichts mehr kodiert, der Baum muss nicht wachsen.
+
+        int q = leaf[c];
+        if (q < 0) {
+            int left = nyt - 2;
+            int right = nyt - 1;
+            child[nyt] = left;
+            parent[left] = nyt;
+            parent[right] = nyt;
+            child[left] = -1;
+            child[right] = -1;
+            weight[left] = 0;
+            weight[right] = 0;
+            symbol[left] = -1;
+            symbol[right] = c;
+            leaf[c] = right;
+            nyt = left;
+            q = right;
+            // Der NYT-Knoten bekommt zwei Kinder: den neuen NYT-Knoten und das neue Blatt.
+        }
+
+        if (q == nyt + 1) {
+            int leader = q;
+            for (int i = q + 1; i <= ROOT && weight[i] == weight[q]; i++) {
+                if (child[i] < 0) leader = i;
+            }
+            // Geschwister des NYT-Knotens: nur mit Blättern tauschen, nie mit dem eigenen Elternknoten.
+
+            if (leader != q) {
+                swap(q, leader);
+                q = leader;
+            }
+            weight[q]++;
+            q = parent[q];
+        }
+
+        while (q != ROOT) {
+            int leader = q;
+            while (leader < ROOT && weight[leader + 1] == weight[q]) leader++;
+            // Höchste Position mit demselben Gewicht.
+
+            if (leader != q) {
+                swap(q, leader);
+                q = leader;
+            }
+            weight[q]++;
+            q = parent[q];
+        }
+        weight[ROOT]++;
+
+        if (weight[ROOT] >= MAX_WEIGHT) reset();
+    }
+
+    /**
+     * Tauscht die Teilbäume an den Positionen {@code a} und {@code b} (gleiches Gewicht).
+     */
+    private void swap(int a, int b) {
+        int tmp = symbol[a];
+        symbol[a] = symbol[b];
+        symbol[b] = tmp;
+
+        tmp = child[a];
+        child[a] = child[b];
+        child[b] = tmp;
+
+        relink(a);
+        relink(b);
+    }
+
+    private void relink(int node) {
+        if (child[node] >= 0) {
+            parent[child[node]] = node;
+            parent[child[node] + 1] = node;
+        } else {
+            leaf[symbol[node]] = node;
+        }
+    }
+}
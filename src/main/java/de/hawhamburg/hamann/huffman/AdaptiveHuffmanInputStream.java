@@ -0,0 +1,71 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Dekodiert einen mit {@link AdaptiveHuffmanOutputStream} erzeugten Strom.
+ * Jedes Zeichen ist lesbar, sobald seine Bits angekommen sind; nach dem
+ * Endezeichen liefert der Strom -1.
+ */
+public final class AdaptiveHuffmanInputStream extends InputStream {
+    private final InputStream in;
+    // Quelle der kodierten Bytes.
+
+    private final BitReader bitIn;
+    private final AdaptiveHuffman model = new AdaptiveHuffman();
+    private boolean eof;
+
+    public AdaptiveHuffmanInputStream(InputStream in) {
+        this.in = in;
+        this.bitIn = new BitReader(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (eof) return -1;
+        int c;
+        try {
+            c = model.decode(bitIn);
+        } catch (IOException e) {
+            if (bitIn.pastEnd()) throw truncated();
+            throw e;
+        }
+        if (bitIn.pastEnd()) throw truncated();
+        // Die Füllbits hinter dem Ende ergeben kein echtes Zeichen, z.B. nach einem Verbindungsabbruch.
+
+        if (c == AdaptiveHuffman.EOF) {
+            eof = true;
+            return -1;
+        }
+        return c;
+    }
+
+    private static EOFException truncated() {
+        return new EOFException("Adaptiver Huffman-Strom endet ohne Endezeichen");
+    }
+
+    /**
+     * Liest mindestens ein Zeichen und danach nur so viele, wie ohne Warten
+     * auf den Quellstrom dekodiert werden können.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int n = 0;
+        do {
+            int c = read();
+            if (c < 0) break;
+            b[off + n++] = (byte) c;
+        } while (n < len && bitIn.bufferedBits() >= AdaptiveHuffman.MAX_CODE_BITS);
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
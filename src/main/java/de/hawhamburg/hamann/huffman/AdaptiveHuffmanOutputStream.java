@@ -0,0 +1,63 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Kodiert alle geschriebenen Bytes sofort mit adaptivem Huffman ({@link AdaptiveHuffman}).
+ * Die Länge der Daten muss vorher nicht bekannt sein, es gibt keinen Header.
+ * <p>
+ * {@link #flush()} gibt alle vollständigen Bytes an den Zielstrom weiter; höchstens
+ * sieben Bits des letzten Zeichens bleiben bis zum nächsten Zeichen zurück.
+ * {@link #close()} schreibt das Endezeichen, füllt bis zur Byte-Grenze auf und
+ * schließt den Zielstrom.
+ */
+public final class AdaptiveHuffmanOutputStream extends OutputStream {
+    private final OutputStream out;
+    // Zielstrom der kodierten Bytes.
+
+    private final BitWriter bitOut;
+    private final AdaptiveHuffman model = new AdaptiveHuffman();
+    private boolean closed;
+
+    public AdaptiveHuffmanOutputStream(OutputStream out) {
+        this.out = out;
+        this.bitOut = new BitWriter(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        model.encode(b & 0xFF, bitOut);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        for (int i = off; i < off + len; i++) {
+            model.encode(b[i] & 0xFF, bitOut);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        bitOut.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        model.encode(AdaptiveHuffman.EOF, bitOut);
+        bitOut.align();
+        bitOut.flush();
+        closed = true;
+        out.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Strom ist geschlossen");
+    }
+}
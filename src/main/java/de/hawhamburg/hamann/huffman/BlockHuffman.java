@@ -0,0 +1,472 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Blockweise Huffman-Kodierung zwischen beliebigen Strömen.
+ * Die Eingabe wird nur einmal gelesen: Jeder Block von höchstens
+ * {@code blockSize} Bytes wird im Speicher gezählt, bekommt einen eigenen
+ * kanonischen Code und wird sofort geschrieben. Der Speicherbedarf hängt
+ * damit nur von der Blockgröße ab, nicht von der Länge der Eingabe.
+ * <p>
+ * Da die Blöcke unabhängig sind, werden sie parallel auf einem
+ * {@link ForkJoinPool} kodiert und in der ursprünglichen Reihenfolge geschrieben.
+ * Gleichzeitig sind höchstens zwei Blöcke je Thread im Speicher.
+ * <p>
+ * Format je Block: Originallänge (32 Bit), Länge der Nutzdaten (32 Bit) und
+ * die Nutzdaten selbst (Codelängen und kodierte Bits, auf ein Byte aufgefüllt).
+ * Eine Originallänge von 0 beendet die Blöcke. Danach folgt der Blockindex:
+ * Anzahl der Blöcke (32 Bit), je Block der Offset in den Originaldaten und der
+ * Offset des Blockheaders im kodierten Strom (je 64 Bit), und zuletzt der
+ * Offset des Index selbst (64 Bit), damit er vom Dateiende aus gefunden wird.
+ * <p>
+ * Über den Index können Dateien parallel dekodiert werden: Jeder Block wird
+ * unabhängig gelesen und direkt an seine Position in der Ausgabedatei
+ * geschrieben. Ebenso lässt sich ein beliebiger Bytebereich dekodieren,
+ * ohne die Blöcke davor anzufassen.
+ * <p>
+ * Für Dateien gibt es einen eigenen Weg über {@link FileChannel#map}: Die
+ * Blöcke werden direkt aus dem {@link MappedByteBuffer} gezählt und kodiert,
+ * in wiederverwendete Direct Buffer geschrieben und beim Dekodieren direkt in
+ * die gemappte Zieldatei ausgepackt, ohne Kopien auf dem Heap.
+ */
+public final class BlockHuffman {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    // Standard-Blockgröße: 1 MB.
+
+    private static final int CHARS = 256;
+    // Anzahl der möglichen Zeichen (ein Byte).
+
+    static final int PAYLOAD_RESERVE = 512;
+    // Einzelne Codes können länger als 8 Bits sein, die kodierten Daten eines Blocks
+    // aber insgesamt nicht: Ein optimaler Präfixcode (auch mit Längengrenze ab 8 Bits)
+    // ist nie länger als der feste 8-Bit-Code, also höchstens 8 Bits je Zeichen im Mittel.
+    // Dazu kommen die Codelängen (höchstens 256 * 7 Bits) und das Auffüllen.
+
+    private final int blockSize;
+    // Maximale Anzahl Originalbytes je Block.
+
+    private final int maxCodeLength;
+    // Obergrenze für die Länge eines Codes in Bits.
+
+    private final ForkJoinPool pool;
+    // Threads, auf denen die Blöcke kodiert werden.
+
+    public BlockHuffman() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockHuffman(int blockSize) {
+        this(blockSize, ForkJoinPool.commonPool());
+    }
+
+    public BlockHuffman(int blockSize, ForkJoinPool pool) {
+        this(blockSize, CanonicalCode.MAX_CODE_LENGTH, pool);
+    }
+
+    /**
+     * @param maxCodeLength Obergrenze für Codelängen (8 bis 63 Bits). Kleine Werte
+     *                      halten die Dekodiertabellen klein, kosten aber etwas Kompression.
+     */
+    public BlockHuffman(int blockSize, int maxCodeLength, ForkJoinPool pool) {
+        if (blockSize <= 0 || blockSize > Integer.MAX_VALUE - PAYLOAD_RESERVE) {
+            throw new IllegalArgumentException("Ungültige Blockgröße: " + blockSize);
+        }
+        if (maxCodeLength < 8 || maxCodeLength > CanonicalCode.UNLIMITED) {
+            throw new IllegalArgumentException("Ungültige maximale Codelänge: " + maxCodeLength);
+        }
+        // Mindestens 8 Bits, damit alle 256 Zeichen einen Code bekommen können.
+
+        this.blockSize = blockSize;
+        this.maxCodeLength = maxCodeLength;
+        this.pool = pool;
+    }
+
+    /**
+     * Liefert einen neuen Kontext mit Blockgröße und Codelänge dieses Encoders,
+     * der dasselbe Format im Speicher erzeugt und liest (siehe {@link HuffmanContext}).
+     */
+    public HuffmanContext newContext() {
+        return new HuffmanContext(blockSize, maxCodeLength);
+    }
+
+    /**
+     * Ein fertig kodierter Block. Die Nutzdaten liegen zwischen Position und Limit.
+     */
+    private static final class EncodedBlock {
+        final int rawLength;
+        final ByteBuffer payload;
+
+        EncodedBlock(int rawLength, ByteBuffer payload) {
+            this.rawLength = rawLength;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Sammelt die Einträge des Blockindex, während die Blöcke geschrieben werden.
+     */
+    private static final class IndexWriter {
+        private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        private final DataOutputStream entryData = new DataOutputStream(entries);
+        private long rawOffset;
+        private long encodedOffset;
+        private int blocks;
+
+        void add(int rawLength, int encodedLength) throws IOException {
+            entryData.writeLong(rawOffset);
+            entryData.writeLong(encodedOffset);
+            rawOffset += rawLength;
+            encodedOffset += encodedLength;
+            blocks++;
+        }
+
+        /**
+         * Liefert Endemarkierung, Blockindex und dessen Offset.
+         */
+        byte[] trailer() throws IOException {
+            ByteArrayOutputStream trailer = new ByteArrayOutputStream(entries.size() + 16);
+            DataOutputStream data = new DataOutputStream(trailer);
+            data.writeInt(0);
+            data.writeInt(blocks);
+            entries.writeTo(data);
+            data.writeLong(encodedOffset + 4);
+            return trailer.toByteArray();
+        }
+    }
+
+    /**
+     * Kodiert den gesamten Eingabestrom blockweise in den Ausgabestrom.
+     * Keiner der Ströme wird geschlossen.
+     */
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        IndexWriter index = new IndexWriter();
+        ArrayDeque<ForkJoinTask<EncodedBlock>> pending = new ArrayDeque<>();
+        int window = 2 * pool.getParallelism();
+
+        boolean eof = false;
+        try {
+            while (!eof || !pending.isEmpty()) {
+                byte[] block = eof ? new byte[0] : in.readNBytes(blockSize);
+                if (block.length > 0) {
+                    pending.add(pool.submit(() -> encodeBlock(ByteBuffer.wrap(block),
+                            ByteBuffer.allocate(block.length + PAYLOAD_RESERVE))));
+                    // Kodiert den Block im Hintergrund, während der nächste gelesen wird.
+                } else {
+                    eof = true;
+                }
+
+                while (!pending.isEmpty() && (eof || pending.size() >= window || pending.peek().isDone())) {
+                    EncodedBlock encoded = pending.remove().join();
+                    int payloadLength = encoded.payload.remaining();
+                    data.writeInt(encoded.rawLength);
+                    data.writeInt(payloadLength);
+                    data.write(encoded.payload.array(), 0, payloadLength);
+                    index.add(encoded.rawLength, 8 + payloadLength);
+                }
+                // Schreibt fertige Blöcke in der ursprünglichen Reihenfolge.
+            }
+        } finally {
+            cancelAll(pending);
+            // Nur nach einem Fehler sind hier noch Blöcke übrig.
+        }
+        data.write(index.trailer());
+        data.flush();
+    }
+
+    /**
+     * Kodiert eine Datei über Memory-Mapping in die Zieldatei.
+     * Das Ergebnis ist dasselbe wie bei {@link #encode(InputStream, OutputStream)}.
+     */
+    public void encode(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            IndexWriter index = new IndexWriter();
+            ArrayDeque<ForkJoinTask<EncodedBlock>> pending = new ArrayDeque<>();
+            ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+            ByteBuffer header = ByteBuffer.allocate(8);
+            int window = 2 * pool.getParallelism();
+
+            long size = in.size();
+            long offset = 0;
+            try {
+                while (offset < size || !pending.isEmpty()) {
+                    if (offset < size) {
+                        int length = (int) Math.min(blockSize, size - offset);
+                        MappedByteBuffer block = in.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                        ByteBuffer target = free.isEmpty()
+                                ? ByteBuffer.allocateDirect(blockSize + PAYLOAD_RESERVE) : free.pop();
+                        pending.add(pool.submit(() -> encodeBlock(block, target)));
+                        offset += length;
+                        // Die Direct Buffer werden wiederverwendet, sobald ihr Block geschrieben ist.
+                    }
+
+                    boolean eof = offset >= size;
+                    while (!pending.isEmpty() && (eof || pending.size() >= window || pending.peek().isDone())) {
+                        EncodedBlock encoded = pending.remove().join();
+                        int payloadLength = encoded.payload.remaining();
+                        header.clear();
+                        header.putInt(encoded.rawLength).putInt(payloadLength).flip();
+                        writeFully(out, header);
+                        writeFully(out, encoded.payload);
+                        index.add(encoded.rawLength, 8 + payloadLength);
+                        free.push(encoded.payload);
+                    }
+                    // Schreibt fertige Blöcke in der ursprünglichen Reihenfolge.
+                }
+            } finally {
+                cancelAll(pending);
+                // Keine Aufgabe darf noch laufen, wenn die Kanäle geschlossen werden.
+            }
+            writeFully(out, ByteBuffer.wrap(index.trailer()));
+        }
+    }
+
+    /**
+     * Bricht noch nicht begonnene Aufgaben ab und wartet auf die bereits laufenden.
+     * Danach greift keine von ihnen mehr auf Ströme, Kanäle oder Puffer des Aufrufers zu.
+     */
+    private static void cancelAll(Collection<? extends ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) task.cancel(false);
+        for (ForkJoinTask<?> task : tasks) task.quietlyJoin();
+    }
+
+    private EncodedBlock encodeBlock(ByteBuffer block, ByteBuffer target) {
+        target.clear();
+        try {
+            encodeBlock(block, maxCodeLength, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        target.flip();
+        return new EncodedBlock(block.remaining(), target);
+    }
+
+    /**
+     * Dekodiert einen mit {@link #encode(InputStream, OutputStream)} erzeugten Strom.
+     * Es wird genau bis zur Endemarkierung gelesen.
+     */
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] payload = new byte[0];
+        byte[] block = new byte[0];
+
+        int rawLength;
+        while ((rawLength = data.readInt()) != 0) {
+            int payloadLength = data.readInt();
+            if (rawLength < 0 || payloadLength < 0) {
+                throw new IOException("Ungültiger Blockheader: " + rawLength + "/" + payloadLength);
+            }
+            if (payload.length < payloadLength) payload = new byte[payloadLength];
+            if (block.length < rawLength) block = new byte[rawLength];
+            // Puffer wachsen nur bis zur Blockgröße des Encoders.
+
+            data.readFully(payload, 0, payloadLength);
+            decodeBlock(ByteBuffer.wrap(payload, 0, payloadLength), ByteBuffer.wrap(block, 0, rawLength));
+            out.write(block, 0, rawLength);
+        }
+        int blocks = data.readInt();
+        data.skipNBytes(16L * blocks + 8);
+        // Der Index wird beim sequentiellen Lesen nicht benötigt.
+
+        out.flush();
+    }
+
+    /**
+     * Dekodiert eine Datei parallel in die Zieldatei.
+     * Jeder Block wird auf dem Pool aus der gemappten Eingabe direkt in seinen
+     * gemappten Bereich der Zieldatei dekodiert.
+     */
+    public void decode(Path encoded, Path decoded) throws IOException {
+        try (FileChannel in = FileChannel.open(encoded, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(decoded, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            BlockIndex index = BlockIndex.read(in);
+
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            try {
+                for (int i = 0; i < index.blocks(); i++) {
+                    int block = i;
+                    tasks.add(pool.submit(() -> {
+                        try {
+                            ByteBuffer header = readFully(in, 8, index.encodedOffset[block]);
+                            int rawLength = header.getInt();
+                            ByteBuffer payload = mapPayload(in, index.encodedOffset[block], rawLength, header.getInt());
+                            decodeBlock(payload, out.map(FileChannel.MapMode.READ_WRITE, index.rawOffset[block], rawLength));
+                            // Jeder Block füllt seinen eigenen Bereich, die Reihenfolge der Threads ist egal.
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) task.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                cancelAll(tasks);
+                // Nach einem fehlerhaften Block liest keine Aufgabe mehr aus den geschlossenen Kanälen.
+            }
+        }
+    }
+
+    /**
+     * Dekodiert nur den Bereich {@code [offset, offset + length)} der Originaldaten.
+     * Gelesen werden ausschließlich die Blöcke, die diesen Bereich überdecken.
+     */
+    public void decodeRange(Path encoded, long offset, long length, OutputStream out) throws IOException {
+        try (FileChannel in = FileChannel.open(encoded, StandardOpenOption.READ)) {
+            BlockIndex index = BlockIndex.read(in);
+            if (offset < 0 || length < 0 || offset + length > index.rawSize) {
+                throw new IndexOutOfBoundsException("Bereich " + offset + "+" + length
+                        + " liegt außerhalb von " + index.rawSize + " Bytes");
+            }
+
+            long end = offset + length;
+            for (int i = index.blockOf(offset); i < index.blocks() && index.rawOffset[i] < end; i++) {
+                ByteBuffer header = readFully(in, 8, index.encodedOffset[i]);
+                byte[] raw = new byte[header.getInt()];
+                decodeBlock(mapPayload(in, index.encodedOffset[i], raw.length, header.getInt()), ByteBuffer.wrap(raw));
+
+                int from = (int) Math.max(0, offset - index.rawOffset[i]);
+                int to = (int) Math.min(raw.length, end - index.rawOffset[i]);
+                out.write(raw, from, to - from);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Der Blockindex am Ende einer kodierten Datei.
+     */
+    private static final class BlockIndex {
+        final long[] rawOffset;
+        final long[] encodedOffset;
+        final long rawSize;
+
+        private BlockIndex(long[] rawOffset, long[] encodedOffset, long rawSize) {
+            this.rawOffset = rawOffset;
+            this.encodedOffset = encodedOffset;
+            this.rawSize = rawSize;
+        }
+
+        int blocks() {
+            return rawOffset.length;
+        }
+
+        /**
+         * Liefert den Block, der das Originalbyte {@code offset} enthält.
+         */
+        int blockOf(long offset) {
+            int i = Arrays.binarySearch(rawOffset, offset);
+            return i >= 0 ? i : Math.max(0, -i - 2);
+        }
+
+        static BlockIndex read(FileChannel in) throws IOException {
+            long size = in.size();
+            if (size < 12) throw new IOException("Kein Blockindex vorhanden");
+            long indexOffset = readFully(in, 8, size - 8).getLong();
+            // Der Offset des Index steht in den letzten 8 Bytes.
+
+            if (indexOffset < 4 || indexOffset > size - 12) throw new IOException("Ungültiger Blockindex");
+            int blocks = readFully(in, 4, indexOffset).getInt();
+            if (blocks < 0 || indexOffset + 4 + 16L * blocks + 8 != size) {
+                throw new IOException("Ungültiger Blockindex");
+            }
+
+            ByteBuffer entries = readFully(in, 16 * blocks, indexOffset + 4);
+            long[] rawOffset = new long[blocks];
+            long[] encodedOffset = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                rawOffset[i] = entries.getLong();
+                encodedOffset[i] = entries.getLong();
+            }
+
+            long rawSize = 0;
+            if (blocks > 0) {
+                rawSize = rawOffset[blocks - 1] + readFully(in, 4, encodedOffset[blocks - 1]).getInt();
+                // Länge des letzten Blocks aus dessen Header.
+            }
+            return new BlockIndex(rawOffset, encodedOffset, rawSize);
+        }
+    }
+
+    /**
+     * Mappt die Nutzdaten des Blocks, dessen Header bei {@code position} beginnt.
+     */
+    private static ByteBuffer mapPayload(FileChannel in, long position, int rawLength, int payloadLength) throws IOException {
+        if (rawLength < 0 || payloadLength < 0 || position + 8 + payloadLength > in.size()) {
+            throw new IOException("Ungültiger Blockheader: " + rawLength + "/" + payloadLength);
+        }
+        return in.map(FileChannel.MapMode.READ_ONLY, position + 8, payloadLength);
+    }
+
+    private static ByteBuffer readFully(FileChannel in, int length, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Kodierte Datei ist unvollständig");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src} mit eigenem
+     * kanonischen Code nach {@code target}: erst die Codelängen, dann die Daten,
+     * aufgefüllt bis zur nächsten Byte-Grenze. Die Position von {@code src} bleibt unverändert.
+     */
+    static void encodeBlock(ByteBuffer src, int maxCodeLength, ByteBuffer target) throws IOException {
+        int start = src.position();
+        int end = src.limit();
+        int[] freq = new int[CHARS];
+        Histogram.count(src, freq);
+        // Häufigkeiten des Blocks.
+
+        CanonicalCode code = CanonicalCode.fromFrequencies(freq, maxCodeLength);
+        long[] codeBits = code.code;
+        int[] codeLength = code.length;
+
+        BitWriter bitOut = new BitWriter(target);
+        code.write(bitOut);
+        for (int i = start; i < end; i++) {
+            int c = src.get(i) & 0xFF;
+            bitOut.writeBits(codeBits[c], codeLength[c]);
+        }
+        bitOut.align();
+        bitOut.flush();
+    }
+
+    /**
+     * Dekodiert einen Block aus {@code src} in die Bytes zwischen Position und Limit von {@code dst}.
+     */
+    static void decodeBlock(ByteBuffer src, ByteBuffer dst) throws IOException {
+        BitReader bitIn = new BitReader(src);
+        DecodeTable table = CanonicalCode.read(bitIn, CHARS).decodeTable();
+        for (int i = dst.position(); i < dst.limit(); i++) {
+            dst.put(i, (byte) table.decode(bitIn));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Kanonischer Huffman-Code: Die Codes ergeben sich allein aus den Codelängen.
+ * Zeichen gleicher Länge bekommen aufsteigende Codes in Zeichenreihenfolge,
+ * deshalb genügt es, die Längen im Header zu speichern.
+ * <p>
+ * Header-Format je Zeichen: {@code 1} + Länge ({@link #LENGTH_BITS} Bits) oder
+ * {@code 0} + Lauflänge-1 ({@link #RUN_BITS} Bits) für aufeinanderfolgende
+ * unbenutzte Zeichen.
+ */
+final class CanonicalCode {
+    static final int LENGTH_BITS = 6;
+    // Bits für eine Codelänge (maximal 63).
+
+    static final int MAX_CODE_LENGTH = 15;
+    // Standard-Obergrenze für Codelängen: Wurzel- und Untertabelle bleiben klein.
+
+    static final int UNLIMITED = (1 << LENGTH_BITS) - 1;
+    // Keine Begrenzung über das hinaus, was der Header speichern kann.
+
+    private static final int RUN_BITS = 8;
+    // Bits für die Lauflänge unbenutzter Zeichen.
+
+    final int[] length;
+    // Codelänge je Zeichen, 0 = Zeichen kommt nicht vor.
+
+    final long[] code;
+    // Code je Zeichen, rechtsbündig.
+
+    private final int[] lengthCount = new int[UNLIMITED + 1];
+    private final long[] nextCode = new long[UNLIMITED + 1];
+    private long[] sorted;
+    private long[] weight;
+    private int[] parent;
+    private int[] depth;
+    // Arbeitsspeicher, bleibt für den nächsten Aufruf von build erhalten.
+
+    CanonicalCode(int[] length) {
+        this.length = length;
+        this.code = new long[length.length];
+        assignCodes();
+    }
+
+    /**
+     * Leerer Code für {@code symbols} Zeichen, der mit {@link #build(int[], int)}
+     * oder {@link #readLengths(BitReader)} immer wieder neu gefüllt werden kann.
+     */
+    CanonicalCode(int symbols) {
+        this(new int[symbols]);
+    }
+
+    private void assignCodes() {
+        int maxLength = 0;
+        for (int len : length) maxLength = Math.max(maxLength, len);
+
+        Arrays.fill(lengthCount, 0, maxLength + 1, 0);
+        for (int len : length) if (len > 0) lengthCount[len]++;
+        // Anzahl der Codes je Länge.
+
+        long c = 0;
+        for (int len = 1; len <= maxLength; len++) {
+            c = (c + lengthCount[len - 1]) << 1;
+            nextCode[len] = c;
+        }
+        // Erster Code jeder Länge, wie in RFC 1951 beschrieben.
+
+        for (int s = 0; s < length.length; s++) {
+            code[s] = length[s] > 0 ? nextCode[length[s]]++ : 0;
+        }
+    }
+
+    /**
+     * Berechnet die Codelängen eines Huffman-Codes für die gegebenen Häufigkeiten.
+     * Statt eines Baums aus Objekten wird das Zwei-Warteschlangen-Verfahren auf
+     * Arrays verwendet: Die Blätter werden nach Häufigkeit sortiert, die inneren
+     * Knoten entstehen automatisch in aufsteigender Reihenfolge.
+     */
+    static CanonicalCode fromFrequencies(int[] freq) {
+        return fromFrequencies(freq, UNLIMITED);
+    }
+
+    /**
+     * Wie {@link #fromFrequencies(int[])}, aber kein Code wird länger als
+     * {@code maxLength} Bits. Ist der optimale Code länger, werden die Längen
+     * mit dem Package-Merge-Verfahren neu berechnet.
+     */
+    static CanonicalCode fromFrequencies(int[] freq, int maxLength) {
+        return new CanonicalCode(freq.length).build(freq, maxLength);
+    }
+
+    /**
+     * Berechnet den Code wie {@link #fromFrequencies(int[], int)}, aber in diesem
+     * Objekt. Neuer Speicher wird nur beim ersten Aufruf angelegt und wenn
+     * Package-Merge nötig ist.
+     *
+     * @param freq Häufigkeiten, so viele wie dieser Code Zeichen hat.
+     */
+    CanonicalCode build(int[] freq, int maxLength) {
+        if (maxLength < 1 || maxLength > UNLIMITED) {
+            throw new IllegalArgumentException("Ungültige maximale Codelänge: " + maxLength);
+        }
+        if (freq.length != length.length) {
+            throw new IllegalArgumentException("Falsche Anzahl Zeichen: " + freq.length + " statt " + length.length);
+        }
+        Arrays.fill(length, 0);
+        int n = 0;
+        for (int f : freq) if (f > 0) n++;
+        if (n == 0) {
+            assignCodes();
+            return this;
+        }
+
+        if (sorted == null) {
+            sorted = new long[length.length];
+            weight = new long[2 * length.length];
+            parent = new int[2 * length.length];
+            depth = new int[2 * length.length];
+        }
+        for (int s = 0, i = 0; s < freq.length; s++) {
+            if (freq[s] > 0) sorted[i++] = ((long) freq[s] << 32) | s;
+        }
+        Arrays.sort(sorted, 0, n);
+        // Häufigkeit in den oberen, Zeichen in den unteren 32 Bits.
+
+        if (n == 1) {
+            length[(int) sorted[0]] = 1;
+            assignCodes();
+            return this;
+            // Ein einzelnes Zeichen bekommt einen 1-Bit-Code.
+        }
+
+        for (int i = 0; i < n; i++) weight[i] = sorted[i] >>> 32;
+        // Knoten 0..n-1 sind die Blätter, n..2n-2 die inneren Knoten.
+
+        int leaf = 0;
+        int inner = n;
+        for (int next = n; next < 2 * n - 1; next++) {
+            int a = (leaf < n && (inner == next || weight[leaf] <= weight[inner])) ? leaf++ : inner++;
+            int b = (leaf < n && (inner == next || weight[leaf] <= weight[inner])) ? leaf++ : inner++;
+            weight[next] = weight[a] + weight[b];
+            parent[a] = next;
+            parent[b] = next;
+            // Verbindet die beiden leichtesten Knoten zu einem neuen inneren Knoten.
+        }
+
+        int[] depth = this.depth;
+        depth[2 * n - 2] = 0;
+        for (int i = 2 * n - 3; i >= 0; i--) depth[i] = depth[parent[i]] + 1;
+        // Eltern haben immer einen größeren Index, die Wurzel ist 2n-2.
+
+        int maxDepth = 0;
+        for (int i = 0; i < n; i++) maxDepth = Math.max(maxDepth, depth[i]);
+        if (maxDepth > maxLength) {
+            depth = packageMerge(Arrays.copyOf(weight, n), maxLength);
+            // Der optimale Code ist zu tief und wird neu, aber begrenzt berechnet.
+        }
+
+        for (int i = 0; i < n; i++) length[(int) sorted[i]] = depth[i];
+        assignCodes();
+        return this;
+    }
+
+    /**
+     * Package-Merge (Larmore/Hirschberg): optimale Codelängen mit Obergrenze.
+     * Auf jeder der {@code maxLength} Ebenen werden die Elemente der vorherigen
+     * Ebene paarweise zu Paketen zusammengefasst und mit den Blättern gemischt.
+     * Von der letzten Ebene werden die 2n-2 leichtesten Elemente gewählt; wie oft
+     * ein Blatt darin (auch über Pakete) vorkommt, ist seine Codelänge.
+     *
+     * @param weight aufsteigend sortierte Häufigkeiten.
+     */
+    private static int[] packageMerge(long[] weight, int maxLength) {
+        int n = weight.length;
+        if (n > (1L << maxLength)) {
+            throw new IllegalArgumentException(n + " Zeichen passen nicht in Codes mit " + maxLength + " Bits");
+        }
+
+        boolean[][] isPackage = new boolean[maxLength][];
+        isPackage[0] = new boolean[n];
+        long[] previous = weight;
+        for (int level = 1; level < maxLength; level++) {
+            int packages = previous.length / 2;
+            long[] merged = new long[n + packages];
+            boolean[] kind = new boolean[n + packages];
+            int leaf = 0;
+            int pack = 0;
+            for (int k = 0; k < merged.length; k++) {
+                long packWeight = pack < packages ? previous[2 * pack] + previous[2 * pack + 1] : Long.MAX_VALUE;
+                if (leaf < n && weight[leaf] <= packWeight) {
+                    merged[k] = weight[leaf++];
+                } else {
+                    merged[k] = packWeight;
+                    kind[k] = true;
+                    pack++;
+                }
+            }
+            previous = merged;
+            isPackage[level] = kind;
+        }
+
+        int[] length = new int[n];
+        int selected = 2 * n - 2;
+        for (int level = maxLength - 1; level >= 0; level--) {
+            int packages = 0;
+            for (int k = 0; k < selected; k++) if (isPackage[level][k]) packages++;
+            for (int i = 0; i < selected - packages; i++) length[i]++;
+            // Die gewählten Blätter einer Ebene sind immer die leichtesten.
+
+            selected = 2 * packages;
+            // Gewählte Pakete bestehen aus den ersten Elementen der Ebene darunter.
+        }
+        return length;
+    }
+
+    DecodeTable decodeTable() {
+        return new DecodeTable(length, code);
+    }
+
+    void write(BitWriter out) throws IOException {
+        int s = 0;
+        while (s < length.length) {
+            if (length[s] > 0) {
+                out.writeBoolean(true);
+                out.writeBits(length[s++], LENGTH_BITS);
+                continue;
+            }
+            int run = 0;
+            while (s < length.length && length[s] == 0 && run < (1 << RUN_BITS)) {
+                run++;
+                s++;
+            }
+            out.writeBoolean(false);
+            out.writeBits(run - 1, RUN_BITS);
+            // Unbenutzte Zeichen werden als Lauflänge zusammengefasst.
+        }
+    }
+
+    static CanonicalCode read(BitReader in, int symbols) throws IOException {
+        return new CanonicalCode(symbols).readLengths(in);
+    }
+
+    /**
+     * Liest die Codelängen wie {@link #read(BitReader, int)}, aber in dieses Objekt.
+     */
+    CanonicalCode readLengths(BitReader in) throws IOException {
+        Arrays.fill(length, 0);
+        int s = 0;
+        while (s < length.length) {
+            if (in.readBoolean()) {
+                length[s++] = in.readBits(LENGTH_BITS);
+            } else {
+                s += in.readBits(RUN_BITS) + 1;
+            }
+        }
+        assignCodes();
+        return this;
+    }
+}
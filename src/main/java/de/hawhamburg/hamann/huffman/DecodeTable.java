@@ -0,0 +1,179 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mehrstufige Nachschlagetabelle zum Dekodieren von Huffman-Codes.
+ * Die Wurzeltabelle wird mit {@link #ROOT_BITS} Bits indiziert; längere Codes
+ * landen in Untertabellen. Ein einziges {@code peekBits} liefert damit für alle
+ * Codes bis {@link #ROOT_BITS} Bits direkt das Zeichen.
+ * <p>
+ * Aufbau eines Eintrags: {@code (wert << 8) | flag | bits}.
+ * Ohne {@link #SUBTABLE}-Flag ist {@code wert} das Zeichen und {@code bits} die
+ * Anzahl der zu verbrauchenden Bits. Mit Flag ist {@code wert} der Beginn der
+ * Untertabelle und {@code bits} deren Indexbreite.
+ */
+final class DecodeTable {
+    static final int ROOT_BITS = 10;
+    // Indexbreite der Wurzeltabelle.
+
+    private static final int SUB_BITS = 8;
+    // Maximale Indexbreite einer Untertabelle.
+
+    private static final int SUBTABLE = 0x80;
+    private static final int BITS_MASK = 0x7F;
+
+    private int[] table = new int[1 << ROOT_BITS];
+    private int size;
+    // Alle Tabellen liegen hintereinander in einem Array.
+
+    private int rootBits;
+
+    private long[] keys = new long[0];
+    private long[] sortedCodes = new long[0];
+    private int[] sortedLengths = new int[0];
+    private int[] sortedSymbols = new int[0];
+    // Arbeitsspeicher, bleibt für den nächsten Aufruf von rebuild erhalten.
+
+    /**
+     * Leere Tabelle, die mit {@link #rebuild(int[], long[])} immer wieder neu gefüllt wird.
+     */
+    DecodeTable() {
+    }
+
+    /**
+     * Baut die Tabelle aus Codelängen und Codes auf (beide nach Zeichen indiziert).
+     * Zeichen mit Codelänge 0 kommen nicht vor.
+     */
+    DecodeTable(int[] codeLength, long[] code) {
+        rebuild(codeLength, code);
+        table = Arrays.copyOf(table, size);
+    }
+
+    /**
+     * Baut die Tabelle wie der Konstruktor neu auf. Die Arrays wachsen nur, wenn
+     * der neue Code mehr Zeichen oder Untertabellen braucht als alle vorherigen.
+     */
+    DecodeTable rebuild(int[] codeLength, long[] code) {
+        int n = 0;
+        int maxLength = 0;
+        for (int len : codeLength) {
+            if (len > 0) n++;
+            maxLength = Math.max(maxLength, len);
+        }
+        if (sortedCodes.length < n) {
+            keys = new long[n];
+            sortedCodes = new long[n];
+            sortedLengths = new int[n];
+            sortedSymbols = new int[n];
+        }
+
+        int symbolBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, codeLength.length - 1));
+        if (maxLength + symbolBits < 64) {
+            for (int s = 0, i = 0; s < codeLength.length; s++) {
+                if (codeLength[s] == 0) continue;
+                keys[i++] = ((code[s] << (maxLength - codeLength[s])) << symbolBits) | s;
+            }
+            Arrays.sort(keys, 0, n);
+            // Auf maxLength Bits linksbündig, darunter das Zeichen: So liegen Codes
+            // mit gemeinsamem Präfix nebeneinander, ohne Objekte zum Sortieren.
+
+            for (int i = 0; i < n; i++) {
+                int s = (int) (keys[i] & ((1L << symbolBits) - 1));
+                sortedSymbols[i] = s;
+                sortedLengths[i] = codeLength[s];
+                sortedCodes[i] = code[s] << (64 - codeLength[s]);
+            }
+        } else {
+            sortAligned(codeLength, code, n);
+        }
+
+        rootBits = Math.max(1, Math.min(ROOT_BITS, maxLength));
+        size = 0;
+        allocate(1 << rootBits);
+        build(0, rootBits, 0, sortedCodes, sortedLengths, sortedSymbols, 0, n);
+        return this;
+    }
+
+    /**
+     * Sortiert nach den linksbündigen 64-Bit-Codes, wenn Code und Zeichen nicht
+     * zusammen in einen long passen (nur bei sehr langen Codes).
+     */
+    private void sortAligned(int[] codeLength, long[] code, int n) {
+        long[] aligned = new long[n];
+        int[] symbols = new int[n];
+        Integer[] order = new Integer[n];
+        for (int s = 0, i = 0; s < codeLength.length; s++) {
+            if (codeLength[s] == 0) continue;
+            aligned[i] = code[s] << (64 - codeLength[s]);
+            symbols[i] = s;
+            order[i] = i;
+            i++;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(aligned[a], aligned[b]));
+
+        for (int i = 0; i < n; i++) {
+            sortedCodes[i] = aligned[order[i]];
+            sortedSymbols[i] = symbols[order[i]];
+            sortedLengths[i] = codeLength[sortedSymbols[i]];
+        }
+    }
+
+    /**
+     * Dekodiert genau ein Zeichen und verbraucht dessen Codebits.
+     */
+    int decode(BitReader in) throws IOException {
+        int offset = 0;
+        int bits = rootBits;
+        int entry;
+        while (((entry = table[offset + in.peekBits(bits)]) & SUBTABLE) != 0) {
+            in.skipBits(bits);
+            offset = entry >>> 8;
+            bits = entry & BITS_MASK;
+        }
+        in.skipBits(entry & BITS_MASK);
+        return entry >>> 8;
+    }
+
+    private void build(int offset, int bits, int consumed,
+                       long[] codes, int[] lengths, int[] symbols, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int remaining = lengths[i] - consumed;
+            int index = (int) ((codes[i] << consumed) >>> (64 - bits));
+            if (remaining <= bits) {
+                int fill = 1 << (bits - remaining);
+                Arrays.fill(table, offset + index, offset + index + fill, (symbols[i] << 8) | remaining);
+                // Alle Indizes, die mit diesem Code beginnen, zeigen auf das Zeichen.
+                i++;
+                continue;
+            }
+
+            int end = i;
+            int maxRemaining = 0;
+            while (end < to && (int) ((codes[end] << consumed) >>> (64 - bits)) == index) {
+                maxRemaining = Math.max(maxRemaining, lengths[end] - consumed - bits);
+                end++;
+            }
+            // Codes [i, end) teilen sich den Index und wandern in eine Untertabelle.
+
+            int subBits = Math.min(SUB_BITS, maxRemaining);
+            int subOffset = allocate(1 << subBits);
+            table[offset + index] = (subOffset << 8) | SUBTABLE | subBits;
+            build(subOffset, subBits, consumed + bits, codes, lengths, symbols, i, end);
+            i = end;
+        }
+    }
+
+    private int allocate(int entries) {
+        int offset = size;
+        size += entries;
+        if (size > table.length) table = Arrays.copyOf(table, Math.max(size, table.length * 2));
+        Arrays.fill(table, offset, size, 0);
+        // Beim Wiederverwenden stehen hier noch Einträge des vorherigen Codes.
+        return offset;
+    }
+}
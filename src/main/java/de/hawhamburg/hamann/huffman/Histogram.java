@@ -0,0 +1,140 @@
+package de.hawhamburg.hamann.huffman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Zählt die Häufigkeiten aller Bytes in großen Datenmengen.
+ * <p>
+ * Statt einer Zähltabelle werden {@link #STRIPES} Tabellen abwechselnd benutzt.
+ * Bei Läufen gleicher Bytes (z.B. Nullen oder Leerzeichen) würde sonst jedes
+ * Inkrement auf das Ergebnis des vorherigen warten, weil es dieselbe Speicherzelle
+ * liest, die gerade geschrieben wurde. Mit mehreren Tabellen sind die Inkremente
+ * unabhängig, am Ende werden die Tabellen aufsummiert.
+ * <p>
+ * Dateien werden in Abschnitte geteilt, die über Memory-Mapping parallel auf
+ * einem {@link ForkJoinPool} gezählt werden.
+ */
+final class Histogram {
+    static final int CHARS = 256;
+    // Anzahl der möglichen Zeichen (ein Byte).
+
+    private static final int STRIPES = 4;
+    // Anzahl der verschränkten Zähltabellen.
+
+    static final int WORKSPACE = STRIPES * CHARS;
+    // Größe der Zähltabellen für die Varianten mit eigenem Arbeitsspeicher.
+
+    private static final int MIN_CHUNK = 1 << 20;
+    // Kleinster Abschnitt, der als eigene Aufgabe gezählt wird.
+
+    private static final int MAX_CHUNK = 1 << 30;
+    // Größter Abschnitt, der auf einmal gemappt wird.
+
+    private Histogram() {
+    }
+
+    /**
+     * Addiert die Häufigkeiten der Bytes {@code src[offset..offset+length)} zu {@code freq}.
+     */
+    static void count(byte[] src, int offset, int length, int[] freq) {
+        count(src, offset, length, freq, new int[WORKSPACE]);
+    }
+
+    /**
+     * Wie {@link #count(byte[], int, int, int[])}, aber mit wiederverwendbaren
+     * Zähltabellen {@code counts} der Größe {@link #WORKSPACE}.
+     */
+    static void count(byte[] src, int offset, int length, int[] freq, int[] counts) {
+        Arrays.fill(counts, 0);
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 < end; i += 4) {
+            counts[src[i] & 0xFF]++;
+            counts[CHARS + (src[i + 1] & 0xFF)]++;
+            counts[2 * CHARS + (src[i + 2] & 0xFF)]++;
+            counts[3 * CHARS + (src[i + 3] & 0xFF)]++;
+        }
+        for (; i < end; i++) counts[src[i] & 0xFF]++;
+        // Restliche Bytes, die keine vollen vier mehr ergeben.
+
+        merge(counts, freq);
+    }
+
+    /**
+     * Addiert die Häufigkeiten der Bytes zwischen Position und Limit zu {@code freq}.
+     * Die Position des Puffers bleibt unverändert.
+     */
+    static void count(ByteBuffer src, int[] freq) {
+        count(src, freq, new int[WORKSPACE]);
+    }
+
+    /**
+     * Wie {@link #count(ByteBuffer, int[])}, aber mit wiederverwendbaren
+     * Zähltabellen {@code counts} der Größe {@link #WORKSPACE}.
+     */
+    static void count(ByteBuffer src, int[] freq, int[] counts) {
+        if (src.hasArray()) {
+            count(src.array(), src.arrayOffset() + src.position(), src.remaining(), freq, counts);
+            return;
+        }
+        Arrays.fill(counts, 0);
+        int end = src.limit();
+        int i = src.position();
+        for (; i + 7 < end; i += 8) {
+            long word = src.getLong(i);
+            // Liest acht Bytes auf einmal, z.B. aus einem MappedByteBuffer.
+
+            counts[(int) (word >>> 56)]++;
+            counts[CHARS + (int) ((word >>> 48) & 0xFF)]++;
+            counts[2 * CHARS + (int) ((word >>> 40) & 0xFF)]++;
+            counts[3 * CHARS + (int) ((word >>> 32) & 0xFF)]++;
+            counts[(int) ((word >>> 24) & 0xFF)]++;
+            counts[CHARS + (int) ((word >>> 16) & 0xFF)]++;
+            counts[2 * CHARS + (int) ((word >>> 8) & 0xFF)]++;
+            counts[3 * CHARS + (int) (word & 0xFF)]++;
+        }
+        for (; i < end; i++) counts[src.get(i) & 0xFF]++;
+
+        merge(counts, freq);
+    }
+
+    /**
+     * Zählt die Bytes einer Datei parallel und addiert sie zu {@code freq}.
+     */
+    static void count(Path file, ForkJoinPool pool, int[] freq) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long chunk = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, size / (4L * pool.getParallelism()) + 1));
+            // Mehrere Abschnitte je Thread, damit ungleich schnelle Threads ausgeglichen werden.
+
+            List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += chunk) {
+                ByteBuffer part = in.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(chunk, size - offset));
+                tasks.add(pool.submit(() -> {
+                    int[] counts = new int[CHARS];
+                    count(part, counts);
+                    return counts;
+                }));
+            }
+            for (ForkJoinTask<int[]> task : tasks) {
+                int[] counts = task.join();
+                for (int c = 0; c < CHARS; c++) freq[c] += counts[c];
+            }
+        }
+    }
+
+    private static void merge(int[] counts, int[] freq) {
+        for (int c = 0; c < CHARS; c++) {
+            freq[c] += counts[c] + counts[CHARS + c] + counts[2 * CHARS + c] + counts[3 * CHARS + c];
+        }
+    }
+}
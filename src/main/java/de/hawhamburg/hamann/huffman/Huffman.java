@@ -1,8 +1,9 @@
 package de.hawhamburg.hamann.huffman;
 // Definiert das Paket, in dem diese Klassen gespeichert sind.
 
-import com.github.jinahya.bit.io.*;
-// Importiert eine Bibliothek, die das Arbeiten mit Bits und Bytes vereinfacht.
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+// Importiert die gemeinsame Bit-Ein-/Ausgabe von Huffman und LZW.
 
 import java.io.*;
 // Importiert grundlegende Klassen für die Ein-/Ausgabe.
@@ -13,9 +14,9 @@ import java.nio.file.Path;
 
 import java.util.Arrays;
 import java.util.PriorityQueue;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
-// Importiert Hilfsklassen für Datenstrukturen, Arrays, Stacks und Streams.
+// Importiert Hilfsklassen für Datenstrukturen, Arrays und Streams.
 
 class BTree<D extends HuffNode> implements Comparable<BTree<D>> {
 // Generische Binärbaumklasse. Die Daten im Baum müssen vom Typ `HuffNode` sein.
@@ -68,6 +69,20 @@ class HuffNode {
 }
 
 class Huffman {
+    enum Format {
+        FREQUENCIES,
+        // Header mit allen 256 Häufigkeiten, der Decoder baut den Baum neu auf.
+
+        CANONICAL,
+        // Kompakter Header mit Codelängen, die Codes werden kanonisch berechnet.
+
+        BLOCKS,
+        // Unabhängige Blöcke mit eigenen Codes, parallel kodiert (siehe BlockHuffman).
+
+        ADAPTIVE
+        // Ein Durchlauf ohne Header, der Baum wächst mit jedem Zeichen (siehe AdaptiveHuffman).
+    }
+
     private static final int CHARS = 256;
     // Maximale Anzahl an Zeichen (ASCII-Zeichensatz).
 
@@ -83,21 +98,38 @@ class Huffman {
     private final Path decodedPath;
     // Pfad zur Datei, in der die dekodierten Daten gespeichert werden.
 
+    private final Format format;
+    // Format des Headers der kodierten Datei.
+
+    private final int maxCodeLength;
+    // Obergrenze für Codelängen in den Formaten CANONICAL und BLOCKS.
+
     private final int[] freq = new int[CHARS];
     // Array, das die Häufigkeit jedes Zeichens speichert.
 
-    private final Integer[][] codeTable = new Integer[CHARS][ALIGN];
-    // Tabelle zur Speicherung der Huffman-Codes für jedes Zeichen.
+    private final long[] codeBits = new long[CHARS];
+    // Huffman-Code jedes Zeichens, rechtsbündig in einem long.
+
+    private final int[] codeLength = new int[CHARS];
+    // Länge des Huffman-Codes jedes Zeichens, 0 = Zeichen kommt nicht vor.
 
     private final PriorityQueue<BTree<HuffNode>> heap = new PriorityQueue<>();
     // Min-Heap zur Konstruktion des Huffman-Baums.
 
-    private final Stack<Integer> path = new Stack<>();
-    // Stack, um den aktuellen Pfad (0/1) während der Baumtraversierung zu speichern.
-
     public Huffman(Path filePath) {
+        this(filePath, Format.FREQUENCIES);
+    }
+
+    public Huffman(Path filePath, Format format) {
+        this(filePath, format, CanonicalCode.MAX_CODE_LENGTH);
+    }
+
+    public Huffman(Path filePath, Format format, int maxCodeLength) {
         this.filePath = filePath;
-        // Speichert den Pfad zur Eingabedatei.
+        this.format = format;
+        this.maxCodeLength = maxCodeLength;
+        // Speichert den Pfad zur Eingabedatei, das gewünschte Format und die maximale Codelänge.
+        // Im Format FREQUENCIES baut der Decoder den Baum selbst, dort gilt keine Grenze.
 
         encodedPath = this.filePath.getParent()
                 .resolve("encoded_" + filePath.getFileName());
@@ -107,6 +139,15 @@ class Huffman {
     }
 
     public void encode() {
+        if (format == Format.BLOCKS) {
+            encodeBlocks();
+            return;
+        }
+        if (format == Format.ADAPTIVE) {
+            encodeAdaptive();
+            return;
+        }
+
         IntStream.range(0, freq.length)
                 .forEach(i -> freq[i] = 0);
         // Setzt alle Häufigkeiten auf 0 zurück.
@@ -114,36 +155,76 @@ class Huffman {
         calculateCharacterFrequencies();
         // Liest die Eingabedatei und berechnet die Häufigkeiten aller Zeichen.
 
-        BTree<HuffNode> root = buildHuffmanTree();
-        // Erstellt den Huffman-Baum basierend auf den Zeichenhäufigkeiten.
+        Arrays.fill(codeLength, 0);
+        // Verwirft die Codes eines vorherigen Durchlaufs.
 
-        calculateCodeFromHuffmanTree(root);
-        // Traversiert den Baum und berechnet die Huffman-Codes für jedes Zeichen.
+        CanonicalCode canonicalCode = null;
+        if (format == Format.CANONICAL) {
+            canonicalCode = CanonicalCode.fromFrequencies(freq, maxCodeLength);
+            System.arraycopy(canonicalCode.code, 0, codeBits, 0, CHARS);
+            System.arraycopy(canonicalCode.length, 0, codeLength, 0, CHARS);
+            // Kanonische Codes mit begrenzter Länge, ganz ohne Baum.
+        } else {
+            initializeHeap();
+            // Initialisiert den Min-Heap mit den berechneten Häufigkeiten.
+
+            BTree<HuffNode> root = buildHuffmanTree();
+            // Erstellt den Huffman-Baum basierend auf den Zeichenhäufigkeiten.
+
+            calculateCodeFromHuffmanTree(root, 0, 0);
+            // Traversiert den Baum und berechnet die Huffman-Codes für jedes Zeichen.
+        }
 
         try {
             Files.deleteIfExists(encodedPath);
             Files.createFile(encodedPath);
             // Löscht die alte Datei (falls vorhanden) und erstellt eine neue Datei.
 
-            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(encodedPath.toFile()))) {
-                StreamByteOutput sbOut = new StreamByteOutput(out);
-                BitOutput bitOut = new DefaultBitOutput(sbOut);
-                // Initialisiert die Ausgabe für Bits.
+            try (OutputStream out = new FileOutputStream(encodedPath.toFile())) {
+                BitWriter bitOut = new BitWriter(out);
+                // Initialisiert die Ausgabe für Bits (puffert selbst).
 
-                writeCharacterFrequencies(bitOut);
-                // Schreibt die Zeichenhäufigkeiten in die Datei.
+                if (canonicalCode != null) {
+                    writeCodeLengths(bitOut, canonicalCode);
+                    // Schreibt Zeichenanzahl und Codelängen in die Datei.
+                } else {
+                    writeCharacterFrequencies(bitOut);
+                    // Schreibt die Zeichenhäufigkeiten in die Datei.
+                }
 
                 encodeDataFile(bitOut);
                 // Kodiert die Daten und schreibt sie in die Datei.
 
-                bitOut.align(1);
-                // Passt die Ausrichtung an (fügt ggf. Padding-Bits hinzu).
+                bitOut.align();
+                bitOut.flush();
+                // Passt die Ausrichtung an (fügt ggf. Padding-Bits hinzu) und leert den Puffer.
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void encodeBlocks() {
+        try {
+            new BlockHuffman(BlockHuffman.DEFAULT_BLOCK_SIZE, maxCodeLength, ForkJoinPool.commonPool())
+                    .encode(filePath, encodedPath);
+            // Mappt die Datei in den Speicher und kodiert die Blöcke parallel.
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void encodeAdaptive() {
+        try (InputStream in = new FileInputStream(filePath.toFile());
+             OutputStream out = new AdaptiveHuffmanOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(encodedPath.toFile())))) {
+            in.transferTo(out);
+            // Jedes Zeichen wird sofort kodiert, die Häufigkeiten werden nicht vorher gezählt.
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void initializeHeap() {
         for (char c = 0; c < CHARS; c++) {
             if (freq[c] > 0) heap.add(new BTree<>(new HuffNode(c, freq[c])));
@@ -152,19 +233,12 @@ class Huffman {
     }
 
     private void calculateCharacterFrequencies() {
-        try (InputStream in = new BufferedInputStream(new FileInputStream(filePath.toFile()))) {
-            StreamByteInput sbIn = new StreamByteInput(in);
-            BitInput bitIn = new DefaultBitInput(sbIn);
-
-            for (; ; ) freq[bitIn.readChar(8)]++;
-            // Liest jedes Zeichen aus der Datei und erhöht die entsprechende Häufigkeit.
-
-        } catch (EOFException ignored) {
+        try {
+            Histogram.count(filePath, ForkJoinPool.commonPool(), freq);
+            // Zählt die Datei abschnittsweise parallel statt Zeichen für Zeichen über BitInput.
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        initializeHeap();
-        // Initialisiert den Min-Heap mit den berechneten Häufigkeiten.
     }
 
     private BTree<HuffNode> buildHuffmanTree() {
@@ -180,55 +254,83 @@ class Huffman {
         // Gibt die Wurzel des Huffman-Baums zurück.
     }
 
-    private void calculateCodeFromHuffmanTree(BTree<HuffNode> tree) {
+    private void calculateCodeFromHuffmanTree(BTree<HuffNode> tree, long code, int length) {
         if (tree.isLeaf()) {
-            codeTable[tree.data.character] = Arrays.copyOf(path.toArray(), path.size(), Integer[].class);
+            codeBits[tree.data.character] = code;
+            codeLength[tree.data.character] = length;
             // Speichert den Code für ein Blatt (Zeichen).
 
             return;
         }
-        path.push(0);
-        calculateCodeFromHuffmanTree(tree.links);
-        path.pop();
-        // Rekursive Traversierung nach links.
-
-        path.push(1);
-        calculateCodeFromHuffmanTree(tree.rechts);
-        path.pop();
-        // Rekursive Traversierung nach rechts.
-    }
+        calculateCodeFromHuffmanTree(tree.links, code << 1, length + 1);
+        // Rekursive Traversierung nach links (Bit 0).
 
-    private void encodeDataFile(BitOutput bitOut) throws IOException {
-        try (InputStream in = new BufferedInputStream(new FileInputStream(filePath.toFile()))) {
-            StreamByteInput sbIn = new StreamByteInput(in);
-            BitInput bitIn = new DefaultBitInput(sbIn);
+        calculateCodeFromHuffmanTree(tree.rechts, (code << 1) | 1, length + 1);
+        // Rekursive Traversierung nach rechts (Bit 1).
+    }
 
-            for (; ; ) {
-                char c = bitIn.readChar(8);
-                for (Integer bit : codeTable[c]) {
-                    bitOut.writeBoolean(bit == 1);
+    private void encodeDataFile(BitWriter bitOut) throws IOException {
+        try (InputStream in = new FileInputStream(filePath.toFile())) {
+            byte[] buffer = new byte[1 << 16];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    int c = buffer[i] & 0xFF;
+                    bitOut.writeBits(codeBits[c], codeLength[c]);
+                    // Schreibt den kompletten Code eines Zeichens mit einem Aufruf.
                 }
-                // Liest ein Zeichen und schreibt dessen Code-Bits in die Ausgabedatei.
             }
-        } catch (EOFException ignored) {
         }
     }
 
-    private void writeCharacterFrequencies(BitOutput output) throws IOException {
+    private void writeCharacterFrequencies(BitWriter output) throws IOException {
         for (int i = 0; i < freq.length; i++) {
-            output.writeInt(true, ALIGN, freq[i]);
+            output.writeBits(freq[i], ALIGN);
             // Schreibt die Häufigkeit jedes Zeichens in die kodierte Datei.
         }
     }
 
+    private void writeCodeLengths(BitWriter output, CanonicalCode canonicalCode) throws IOException {
+        output.writeBits(IntStream.of(freq).sum(), ALIGN);
+        // Anzahl der Zeichen in der Originaldatei.
+
+        canonicalCode.write(output);
+        // Lauflängenkodierte Codelängen statt 256 Häufigkeiten.
+    }
+
     public void decode() {
+        decode(true);
+    }
+
+    void decodeWithTree() {
+        decode(false);
+    }
+    // Referenzimplementierung: dekodiert Bit für Bit über den Baum (für Tests).
+    // Gilt nur für das Format FREQUENCIES, kanonische Dateien haben keinen Baum.
+
+    private void decode(boolean useTable) {
+        if (format == Format.BLOCKS) {
+            decodeBlocks();
+            return;
+        }
+        if (format == Format.ADAPTIVE) {
+            decodeAdaptive();
+            return;
+        }
+
         IntStream.range(0, freq.length)
                 .forEach(i -> freq[i] = 0);
         // Setzt alle Häufigkeiten auf 0 zurück.
 
-        try (InputStream in = new BufferedInputStream(new FileInputStream(encodedPath.toFile()))) {
-            StreamByteInput sbIn = new StreamByteInput(in);
-            BitInput bitIn = new DefaultBitInput(sbIn);
+        try (InputStream in = new FileInputStream(encodedPath.toFile())) {
+            BitReader bitIn = new BitReader(in);
+            // Der BitReader puffert selbst und erlaubt das Vorausschauen mehrerer Bits.
+
+            if (format == Format.CANONICAL) {
+                decodeCanonical(bitIn);
+                // Die Codes ergeben sich direkt aus den Längen, ohne Heap und Baum.
+                return;
+            }
 
             readCharacterFrequencies(bitIn);
             // Liest die Häufigkeiten aus der kodierten Datei.
@@ -239,37 +341,84 @@ class Huffman {
             BTree<HuffNode> root = buildHuffmanTree();
             // Baut den Huffman-Baum.
 
-            decodeDataFile(root, bitIn);
+            decodeDataFile(root, bitIn, useTable);
             // Dekodiert die Daten aus der kodierten Datei.
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void decodeDataFile(BTree<HuffNode> root, BitInput bitIn) throws IOException {
+    private void decodeDataFile(BTree<HuffNode> root, BitReader bitIn, boolean useTable) throws IOException {
         int count = root.data.frequency;
         // Anzahl der Zeichen in der Originaldatei.
 
         try (OutputStream out = new BufferedOutputStream(new FileOutputStream(decodedPath.toFile()))) {
-            StreamByteOutput sbOut = new StreamByteOutput(out);
-            BitOutput bitOut = new DefaultBitOutput(sbOut);
+            if (root.isLeaf()) {
+                for (int i = 0; i < count; i++) out.write(root.data.character);
+                // Nur ein einziges Zeichen: es gibt keine Codebits zu lesen.
+            } else if (useTable) {
+                DecodeTable table = createDecodeTable(root);
+                for (int i = 0; i < count; i++) {
+                    out.write(table.decode(bitIn));
+                    // Ein Blick in die Tabelle dekodiert ein ganzes Zeichen.
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    out.write(decodeR(root, bitIn));
+                    // Dekodiert ein Zeichen und schreibt es in die Ausgabedatei.
+                }
+            }
+        }
+    }
+
+    private void decodeBlocks() {
+        try {
+            new BlockHuffman().decode(encodedPath, decodedPath);
+            // Dekodiert die Blöcke über den Blockindex parallel.
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    private void decodeAdaptive() {
+        try (InputStream in = new AdaptiveHuffmanInputStream(new FileInputStream(encodedPath.toFile()));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(decodedPath.toFile()))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void decodeCanonical(BitReader bitIn) throws IOException {
+        int count = bitIn.readBits(ALIGN);
+        // Anzahl der Zeichen in der Originaldatei.
+
+        DecodeTable table = CanonicalCode.read(bitIn, CHARS).decodeTable();
+        // Liest die Codelängen und baut daraus die Dekodiertabelle.
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(decodedPath.toFile()))) {
             for (int i = 0; i < count; i++) {
-                bitOut.writeChar(8, decodeR(root, bitIn));
-                // Dekodiert ein Zeichen und schreibt es in die Ausgabedatei.
+                out.write(table.decode(bitIn));
             }
-        } catch (EOFException ignored) {
         }
     }
 
-    private void readCharacterFrequencies(BitInput bitIn) throws IOException {
+    private DecodeTable createDecodeTable(BTree<HuffNode> root) {
+        Arrays.fill(codeLength, 0);
+        calculateCodeFromHuffmanTree(root, 0, 0);
+        // Berechnet die Codes, aus denen die Tabelle aufgebaut wird.
+
+        return new DecodeTable(codeLength, codeBits);
+    }
+
+    private void readCharacterFrequencies(BitReader bitIn) throws IOException {
         for (int i = 0; i < freq.length; i++) {
-            freq[i] = bitIn.readInt(true, ALIGN);
+            freq[i] = bitIn.readBits(ALIGN);
             // Liest die Häufigkeiten jedes Zeichens aus der kodierten Datei.
         }
     }
 
-    private char decodeR(BTree<HuffNode> tree, BitInput bitIn) throws IOException {
+    private char decodeR(BTree<HuffNode> tree, BitReader bitIn) throws IOException {
         if (tree.isLeaf()) return tree.data.character;
         // Gibt das Zeichen zurück, wenn ein Blattknoten erreicht ist.
 
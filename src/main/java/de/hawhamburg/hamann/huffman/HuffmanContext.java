@@ -0,0 +1,176 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Wiederverwendbarer Encoder und Decoder für {@link BlockHuffman}, gedacht für
+ * viele kurze Nachrichten im Speicher. Häufigkeiten, Code, Dekodiertabelle und
+ * Bit-Ein-/Ausgabe werden einmal angelegt und je Block nur neu gefüllt; danach
+ * legt das Kodieren und Dekodieren keine Objekte mehr an (außer Package-Merge
+ * bei begrenzter Codelänge). Das Format ist genau das von {@link BlockHuffman},
+ * einschließlich Blockindex.
+ * <p>
+ * Nicht threadsicher: Jeder Thread braucht seinen eigenen Kontext.
+ */
+public final class HuffmanContext {
+    private static final int CHARS = 256;
+    // Anzahl der möglichen Zeichen (ein Byte).
+
+    private final int blockSize;
+    private final int maxCodeLength;
+
+    private final int[] freq = new int[CHARS];
+    private final int[] counts = new int[Histogram.WORKSPACE];
+    private final CanonicalCode code = new CanonicalCode(CHARS);
+    private final DecodeTable table = new DecodeTable();
+    private final ByteBuffer empty = ByteBuffer.allocate(0);
+    private final BitWriter bitOut = new BitWriter(empty);
+    private final BitReader bitIn = new BitReader(empty);
+
+    HuffmanContext(int blockSize, int maxCodeLength) {
+        this.blockSize = blockSize;
+        this.maxCodeLength = maxCodeLength;
+    }
+
+    /**
+     * Obergrenze für die Länge kodierter Daten aus {@code length} Bytes.
+     */
+    public int maxEncodedLength(int length) {
+        long blocks = (length + (long) blockSize - 1) / blockSize;
+        return Math.toIntExact(length + blocks * (8 + BlockHuffman.PAYLOAD_RESERVE + 16) + 16);
+        // Je Block Header, Reserve und Indexeintrag, dazu Endemarkierung, Anzahl und Offset des Index.
+    }
+
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src} nach {@code dst}.
+     * Danach steht {@code src} am Limit und {@code dst} hinter den kodierten Daten.
+     *
+     * @throws BufferOverflowException wenn {@code dst} nicht reicht; mit
+     *                                 {@link #maxEncodedLength(int)} freien Bytes reicht er immer.
+     */
+    public void encode(ByteBuffer src, ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int end = src.limit();
+        int blocks = 0;
+        while (src.position() < end) {
+            int rawLength = Math.min(blockSize, end - src.position());
+            int header = dst.position();
+            dst.position(header + 8);
+            src.limit(src.position() + rawLength);
+            try {
+                encodeBlock(src, dst);
+            } finally {
+                src.limit(end);
+            }
+            dst.putInt(header, rawLength);
+            dst.putInt(header + 4, dst.position() - header - 8);
+            src.position(src.position() + rawLength);
+            blocks++;
+        }
+
+        long encodedLength = dst.position() - start;
+        dst.putInt(0);
+        dst.putInt(blocks);
+        long rawOffset = 0;
+        for (int header = start; header < start + encodedLength; header += 8 + dst.getInt(header + 4)) {
+            dst.putLong(rawOffset);
+            dst.putLong(header - start);
+            rawOffset += dst.getInt(header);
+        }
+        // Der Index wird aus den Blockheadern gebildet, die schon in dst stehen.
+        dst.putLong(encodedLength + 4);
+    }
+
+    private void encodeBlock(ByteBuffer src, ByteBuffer dst) throws IOException {
+        Arrays.fill(freq, 0);
+        Histogram.count(src, freq, counts);
+        code.build(freq, maxCodeLength);
+        long[] codeBits = code.code;
+        int[] codeLength = code.length;
+
+        bitOut.reset(dst);
+        code.write(bitOut);
+        for (int i = src.position(); i < src.limit(); i++) {
+            int c = src.get(i) & 0xFF;
+            bitOut.writeBits(codeBits[c], codeLength[c]);
+        }
+        bitOut.align();
+        bitOut.flush();
+    }
+
+    /**
+     * Liefert die Länge der Originaldaten, ohne sie zu dekodieren. Die Position
+     * von {@code src} bleibt unverändert.
+     */
+    public long decodedLength(ByteBuffer src) throws IOException {
+        long length = 0;
+        int position = src.position();
+        int rawLength;
+        while ((rawLength = readInt(src, position)) != 0) {
+            int payloadLength = readInt(src, position + 4);
+            checkHeader(src, position, rawLength, payloadLength);
+            length += rawLength;
+            position += 8 + payloadLength;
+        }
+        return length;
+    }
+
+    /**
+     * Dekodiert die Daten aus {@code src} nach {@code dst}. Es wird genau bis zum
+     * Ende des Blockindex gelesen; danach steht {@code src} dahinter und
+     * {@code dst} hinter den dekodierten Bytes.
+     *
+     * @throws BufferOverflowException wenn die Daten nicht in {@code dst} passen.
+     */
+    public void decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+        int end = src.limit();
+        int rawLength;
+        while ((rawLength = readInt(src, src.position())) != 0) {
+            int payloadLength = readInt(src, src.position() + 4);
+            checkHeader(src, src.position(), rawLength, payloadLength);
+            int payload = src.position() + 8;
+            if (dst.remaining() < rawLength) throw new BufferOverflowException();
+
+            src.position(payload).limit(payload + payloadLength);
+            try {
+                bitIn.reset(src);
+                DecodeTable table = this.table.rebuild(code.readLengths(bitIn).length, code.code);
+                int position = dst.position();
+                for (int i = position; i < position + rawLength; i++) {
+                    dst.put(i, (byte) table.decode(bitIn));
+                }
+                dst.position(position + rawLength);
+            } finally {
+                src.limit(end);
+            }
+            src.position(payload + payloadLength);
+        }
+        int blocks = readInt(src, src.position() + 4);
+        long indexEnd = src.position() + 8 + 16L * blocks + 8;
+        if (blocks < 0 || indexEnd > end) throw new EOFException("Kodierte Daten sind unvollständig");
+        src.position((int) indexEnd);
+        // Der Index wird beim sequentiellen Lesen nicht benötigt.
+    }
+
+    private static int readInt(ByteBuffer src, int position) throws IOException {
+        if (src.limit() - position < 4) throw new EOFException("Kodierte Daten sind unvollständig");
+        return src.getInt(position);
+    }
+
+    /**
+     * Prüft den Blockheader bei {@code position} und ob die Nutzdaten vollständig in {@code src} liegen.
+     */
+    private static void checkHeader(ByteBuffer src, int position, int rawLength, int payloadLength) throws IOException {
+        if (rawLength < 0 || payloadLength < 0) {
+            throw new IOException("Ungültiger Blockheader: " + rawLength + "/" + payloadLength);
+        }
+        if (src.limit() - position - 8 < payloadLength) throw new EOFException("Kodierte Daten sind unvollständig");
+    }
+}
@@ -0,0 +1,324 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+import de.hawhamburg.hamann.bitio.BitWriter;
+import de.hawhamburg.hamann.lzw.LZW;
+import de.hawhamburg.hamann.lzw.LzwInputStream;
+import de.hawhamburg.hamann.lzw.LzwOutputStream;
+import de.hawhamburg.hamann.lzw.LzwTokenSink;
+import de.hawhamburg.hamann.lzw.LzwTokenSource;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LZW mit nachgeschaltetem Huffman-Code. Die LZW-Stufe schreibt ihre Codes nicht
+ * mit fester Breite, sondern übergibt sie als Token ({@link LzwTokenSink}); die
+ * Huffman-Stufe kodiert sie blockweise mit einem eigenen kanonischen Code je Block.
+ * <p>
+ * Einzelzeichen und Steuercodes sind eigene Zeichen des Huffman-Alphabets. Von
+ * Wörterbuchcodes wird nur die Größenklasse ihres Abstands zum neuesten Eintrag
+ * kodiert, zwei Klassen je Zweierpotenz wie bei den Distanzen in RFC 1951; die
+ * restlichen Bits folgen unkodiert. Das Alphabet bleibt so auch bei großen
+ * Wörterbüchern bei {@link #SYMBOLS} Zeichen.
+ * <p>
+ * Die beiden Stufen laufen in getrennten Threads und sind über eine beschränkte
+ * Warteschlange von Token-Blöcken verbunden. LZW läuft im aufrufenden Thread,
+ * die Huffman-Stufe bekommt für jeden Aufruf einen eigenen Thread.
+ * <p>
+ * Format: Wörterbuchgröße und Richtlinie (je 8 Bit), dann je Block die Anzahl der
+ * Token (32 Bit, höchstens {@link #BLOCK_TOKENS}), die Codelängen und die kodierten Token. Ein Block mit 0 Token
+ * beendet die Daten.
+ */
+public final class LzwHuffman {
+    public static final int BLOCK_TOKENS = 1 << 16;
+    // Token je Huffman-Block und je Eintrag der Warteschlange.
+
+    private static final int MIN_SPLIT_TOKENS = 1 << 12;
+    // Kürzere Blöcke enden nicht an einem Wechsel der Codebreite, der Header wäre zu teuer.
+
+    private static final int DIRECT = LzwTokenSink.DIRECT_TOKENS;
+    // Token darunter sind direkt Zeichen des Huffman-Alphabets.
+
+    private static final int DISTANCE_CLASSES = 2 * LZW.MAX_DICT_BIT_SIZE;
+    // Größenklassen für Abstände unter 2^MAX_DICT_BIT_SIZE.
+
+    static final int SYMBOLS = DIRECT + DISTANCE_CLASSES;
+
+    private static final int[] EXTRA_BITS = new int[SYMBOLS];
+    private static final int[] BASE = new int[SYMBOLS];
+    // Unkodierte Bits und kleinster Abstand je Größenklasse, nach Zeichen indiziert.
+
+    static {
+        for (int c = 0; c < DISTANCE_CLASSES; c++) {
+            if (c < 4) {
+                BASE[DIRECT + c] = c;
+                continue;
+            }
+            int k = c >>> 1;
+            EXTRA_BITS[DIRECT + c] = k - 1;
+            BASE[DIRECT + c] = (2 | (c & 1)) << (k - 1);
+        }
+    }
+
+    private static final int QUEUE_CAPACITY = 4;
+    // Token-Blöcke, die höchstens auf die andere Stufe warten.
+
+    private static final long POLL_MILLIS = 100;
+    // Wie oft beim Warten geprüft wird, ob die andere Stufe abgebrochen ist.
+
+    private static final int[] END_OF_TOKENS = new int[0];
+    // Markiert in der Warteschlange das Ende der Token.
+
+    private final int dictBitSize;
+    private final LZW.ResetPolicy resetPolicy;
+
+    public LzwHuffman(int dictBitSize, LZW.ResetPolicy resetPolicy) {
+        if (dictBitSize < LZW.MIN_DICT_BIT_SIZE || dictBitSize > LZW.MAX_DICT_BIT_SIZE) {
+            throw new IllegalArgumentException("Ungültige Wörterbuchgröße: " + dictBitSize + " Bit");
+        }
+        this.dictBitSize = dictBitSize;
+        this.resetPolicy = resetPolicy;
+    }
+
+    /**
+     * Kodiert den Eingabestrom. Keiner der Ströme wird geschlossen.
+     */
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        out.write(dictBitSize);
+        out.write(resetPolicy.ordinal());
+
+        try (Pipe pipe = new Pipe(queue -> writeTokens(queue, out))) {
+            TokenBlocks blocks = new TokenBlocks(pipe);
+            try (LzwOutputStream lzwOut = new LzwOutputStream(blocks, dictBitSize, LZW.Dictionary.HASH, resetPolicy)) {
+                in.transferTo(lzwOut);
+            }
+            blocks.finish();
+            pipe.join();
+        }
+    }
+
+    /**
+     * Dekodiert den Eingabestrom. Keiner der Ströme wird geschlossen.
+     */
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        int width = in.read();
+        int policy = in.read();
+        if (width < LZW.MIN_DICT_BIT_SIZE || width > LZW.MAX_DICT_BIT_SIZE
+                || policy < 0 || policy >= LZW.ResetPolicy.values().length) {
+            throw new IOException("Ungültiger Header: " + width + "/" + policy);
+        }
+
+        try (Pipe pipe = new Pipe(queue -> readTokens(in, queue))) {
+            TokenReader tokens = new TokenReader(pipe);
+            new LzwInputStream(tokens, width, LZW.Dictionary.HASH, LZW.ResetPolicy.values()[policy]).transferTo(out);
+            tokens.drain();
+            // Token hinter dem END-Code werden ignoriert, damit die Huffman-Stufe nicht blockiert.
+            pipe.join();
+        }
+    }
+
+    /**
+     * Huffman-Stufe beim Kodieren: schreibt jeden Token-Block mit eigenem Code.
+     */
+    private static void writeTokens(BlockingQueue<int[]> queue, OutputStream out) throws IOException, InterruptedException {
+        BitWriter bitOut = new BitWriter(out);
+        int[] freq = new int[SYMBOLS];
+        for (int[] block; (block = queue.take()) != END_OF_TOKENS; ) {
+            Arrays.fill(freq, 0);
+            for (int token : block) freq[symbol(token)]++;
+            CanonicalCode code = CanonicalCode.fromFrequencies(freq, CanonicalCode.MAX_CODE_LENGTH);
+
+            bitOut.writeBits(block.length, 32);
+            code.write(bitOut);
+            for (int token : block) {
+                int s = symbol(token);
+                if (s < DIRECT) {
+                    bitOut.writeBits(code.code[s], code.length[s]);
+                    continue;
+                }
+                int extra = EXTRA_BITS[s];
+                bitOut.writeBits((code.code[s] << extra) | (token - DIRECT - BASE[s]), code.length[s] + extra);
+                // Code und unkodierte Bits des Abstands mit einem Aufruf.
+            }
+        }
+        bitOut.writeBits(0, 32);
+        bitOut.align();
+        bitOut.flush();
+    }
+
+    /**
+     * Huffman-Stufe beim Dekodieren: liest Token-Blöcke bis zum Block mit 0 Token.
+     */
+    private static void readTokens(InputStream in, BlockingQueue<int[]> queue) throws IOException, InterruptedException {
+        BitReader bitIn = new BitReader(in);
+        while (true) {
+            int count = bitIn.readBits(32);
+            if (bitIn.pastEnd()) throw new EOFException("Kodierte Daten sind unvollständig");
+            if (count == 0) break;
+            if (count < 0 || count > BLOCK_TOKENS) throw new IOException("Ungültige Blocklänge: " + count);
+
+            DecodeTable table = CanonicalCode.read(bitIn, SYMBOLS).decodeTable();
+            int[] block = new int[count];
+            for (int i = 0; i < count; i++) {
+                int s = table.decode(bitIn);
+                block[i] = s < DIRECT ? s : DIRECT + BASE[s] + bitIn.readBits(EXTRA_BITS[s]);
+            }
+            if (bitIn.pastEnd()) throw new EOFException("Kodierte Daten sind unvollständig");
+            queue.put(block);
+        }
+        queue.put(END_OF_TOKENS);
+    }
+
+    /**
+     * Zeichen des Huffman-Alphabets für ein Token.
+     */
+    static int symbol(int token) {
+        int distance = token - DIRECT;
+        if (distance < 4) return token;
+        int k = 31 - Integer.numberOfLeadingZeros(distance);
+        return DIRECT + 2 * k + ((distance >>> (k - 1)) & 1);
+    }
+
+    /**
+     * Sammelt die Token der LZW-Stufe zu Blöcken für die Warteschlange. Ein Block
+     * endet auch, wenn sich die Codebreite ändert: Die Abstände hängen von der
+     * Größe des Wörterbuchs ab, und ein Code je Breite passt besser als einer für alle.
+     * Das lohnt sich nur für Blöcke ab {@link #MIN_SPLIT_TOKENS} Token.
+     */
+    private static final class TokenBlocks implements LzwTokenSink {
+        private final Pipe pipe;
+        private final int[] block = new int[BLOCK_TOKENS];
+        private int count;
+        private int width;
+
+        TokenBlocks(Pipe pipe) {
+            this.pipe = pipe;
+        }
+
+        @Override
+        public void write(int token, int codeWidth) throws IOException {
+            if (count == BLOCK_TOKENS || (codeWidth != width && count >= MIN_SPLIT_TOKENS)) putBlock();
+            width = codeWidth;
+            // Auch ohne Teilung, sonst zählt ein kurzer Block später noch als Breitenwechsel.
+            block[count++] = token;
+        }
+
+        void finish() throws IOException {
+            putBlock();
+            pipe.put(END_OF_TOKENS);
+        }
+
+        private void putBlock() throws IOException {
+            if (count == 0) return;
+            pipe.put(Arrays.copyOf(block, count));
+            count = 0;
+        }
+    }
+
+    /**
+     * Liefert der LZW-Stufe die Token aus der Warteschlange.
+     */
+    private static final class TokenReader implements LzwTokenSource {
+        private final Pipe pipe;
+        private int[] block = new int[0];
+        private int position;
+
+        TokenReader(Pipe pipe) {
+            this.pipe = pipe;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == block.length) {
+                if (block == END_OF_TOKENS || (block = pipe.take()) == END_OF_TOKENS) {
+                    throw new EOFException("Token enden ohne END-Code");
+                }
+                position = 0;
+            }
+            return block[position++];
+        }
+
+        void drain() throws IOException {
+            while (block != END_OF_TOKENS) block = pipe.take();
+        }
+    }
+
+    private interface Stage {
+        void run(BlockingQueue<int[]> queue) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Warteschlange zur Huffman-Stufe, die in einem eigenen Thread läuft.
+     * Wartet der aufrufende Thread, prüft er regelmäßig, ob die Stufe abgebrochen ist;
+     * {@link #close()} bricht die Stufe ab, falls sie noch läuft.
+     */
+    private static final class Pipe implements Closeable {
+        private final BlockingQueue<int[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final FutureTask<Void> stage;
+
+        Pipe(Stage body) {
+            this.stage = new FutureTask<>(() -> {
+                body.run(queue);
+                return null;
+            });
+            Thread thread = new Thread(stage, "lzw-huffman");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void put(int[] block) throws IOException {
+            try {
+                while (!queue.offer(block, POLL_MILLIS, TimeUnit.MILLISECONDS)) checkStage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        int[] take() throws IOException {
+            try {
+                int[] block;
+                while ((block = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) checkStage();
+                return block;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        /**
+         * Wartet auf das Ende der Stufe und wirft deren Ausnahme weiter.
+         */
+        void join() throws IOException {
+            try {
+                stage.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IOException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        private void checkStage() throws IOException {
+            if (!stage.isDone()) return;
+            join();
+            throw new IOException("Huffman-Stufe wurde vorzeitig beendet");
+        }
+
+        @Override
+        public void close() {
+            stage.cancel(true);
+        }
+    }
+}
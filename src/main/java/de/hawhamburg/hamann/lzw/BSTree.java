@@ -1,75 +1,127 @@
 package de.hawhamburg.hamann.lzw;
 
-import java.util.*;
-
-public class BSTree {
-    char data;
-    int number;
-    Map<Character, BSTree> subtries;
-
-    public BSTree() {
-        this.subtries = new HashMap<>();
-    }
-
-    public BSTree(char data, int number) {
-        this();
-        this.data = data;
-        this.number = number;
-    }
-
-    public int getNumber() {
-        return number;
-    }
-
-
-
-    public void insert(List<Character> prefix, int number) {
-        BSTree current = this;
-        for (char l : prefix) {
-            current = current.subtries.computeIfAbsent(l, c -> new BSTree(c, number));
+import java.util.Arrays;
+
+/**
+ * Wörterbuch als Trie. Jeder Knoten ist genau ein Code, der Knoten mit Nummer
+ * {@code code} liegt an Position {@code code} aller Arrays. Die Rückrichtung
+ * (Code -> Zeichenfolge) ist damit ein direkter Zugriff, gefolgt vom Weg über
+ * die Elternknoten bis zum Einzelzeichen.
+ * <p>
+ * Die Kinder eines Knotens bilden eine verkettete Liste in {@code firstChild}
+ * und {@code nextSibling}. Ein gefundenes Kind rückt an den Anfang der Liste,
+ * so dass häufige Fortsetzungen nach wenigen Schritten gefunden werden.
+ * <p>
+ * Zum Zurücksetzen wird nur die Generation erhöht: Kinderlisten aus einer
+ * älteren Generation gelten als leer. Es wird also weder Speicher neu
+ * angelegt noch ein Array gelöscht.
+ */
+final class BSTree implements LzwDictionary {
+    private static final int CHARS = 256;
+    // Codes 0 bis 255 sind die Einzelzeichen (Wurzeln des Tries).
+
+    private final int[] parent;
+    // Elternknoten (Präfixcode), -1 bei Einzelzeichen.
+
+    private final byte[] label;
+    // Byte an der Kante vom Elternknoten zu diesem Knoten.
+
+    private final int[] depth;
+    // Länge der Zeichenfolge des Knotens.
+
+    private final int[] firstChild;
+    // Erstes Kind, -1 wenn der Knoten keine Kinder hat.
+
+    private final int[] nextSibling;
+    // Nächstes Geschwister in der Kinderliste des Elternknotens, -1 am Ende.
+
+    private final int[] generation;
+    // Generation, in der die Kinderliste des Knotens zuletzt angelegt wurde.
+
+    private int currentGeneration = 1;
+    // Nur Kinderlisten dieser Generation sind gültig.
+
+    BSTree(int maxCodes) {
+        parent = new int[maxCodes];
+        label = new byte[maxCodes];
+        depth = new int[maxCodes];
+        firstChild = new int[maxCodes];
+        nextSibling = new int[maxCodes];
+        generation = new int[maxCodes];
+        for (int c = 0; c < CHARS; c++) {
+            parent[c] = -1;
+            label[c] = (byte) c;
+            depth[c] = 1;
         }
     }
 
-    public boolean includes(List<Character> prefix) {
-        return this.getByPrefix(prefix) != null;
-    }
-
-    public List<Character> getByNum(int number) {
-        return getByNum(number, new ArrayList<>());
-    }
-
-    public List<Character> getByNum(int number, List<Character> prefix) {
-        if (this.number == number) return List.of();
-
-        for (BSTree subBSTree : subtries.values()) {
-            if (subBSTree.containsNumber(number)) {
-                prefix.add(subBSTree.data);
-                subBSTree.getByNum(number, prefix);
-                break;
+    @Override
+    public int find(int prefix, int b) {
+        if (generation[prefix] != currentGeneration) return -1;
+        // Kinderliste stammt aus der Zeit vor dem letzten Zurücksetzen.
+
+        int previous = -1;
+        for (int child = firstChild[prefix]; child >= 0; child = nextSibling[child]) {
+            if ((label[child] & 0xFF) == b) {
+                if (previous >= 0) {
+                    nextSibling[previous] = nextSibling[child];
+                    nextSibling[child] = firstChild[prefix];
+                    firstChild[prefix] = child;
+                    // Gefundenes Kind an den Anfang der Liste.
+                }
+                return child;
             }
+            previous = child;
         }
-        return prefix;
+        return -1;
     }
 
-    public boolean containsNumber(int number) {
-        if (this.number == number) return true;
-        for (BSTree subBSTree : subtries.values()) {
-            if (subBSTree.containsNumber(number)) return true;
+    @Override
+    public void add(int prefix, int b, int code) {
+        if (generation[prefix] != currentGeneration) {
+            generation[prefix] = currentGeneration;
+            firstChild[prefix] = -1;
         }
-        return false;
+        parent[code] = prefix;
+        label[code] = (byte) b;
+        depth[code] = depth[prefix] + 1;
+        nextSibling[code] = firstChild[prefix];
+        firstChild[prefix] = code;
+
+        generation[code] = currentGeneration;
+        firstChild[code] = -1;
+        // Der neue Knoten hat noch keine Kinder.
     }
 
-    public BSTree getByPrefix(List<Character> prefix) {
-        Queue<Character> pfxQueue = new LinkedList<>(prefix);
-        return getByPrefix(pfxQueue);
+    @Override
+    public void remove(int code) {
+        int p = parent[code];
+        if (firstChild[p] == code) {
+            firstChild[p] = nextSibling[code];
+            return;
+        }
+        int child = firstChild[p];
+        while (nextSibling[child] != code) child = nextSibling[child];
+        nextSibling[child] = nextSibling[code];
+        // Aus der Kinderliste des Elternknotens aushängen.
     }
 
-    public BSTree getByPrefix(Queue<Character> prefix) {
-        if (prefix.isEmpty()) return this;
+    @Override
+    public int expand(int code, byte[] buffer) {
+        int n = depth[code];
+        for (int i = n - 1; i >= 0; i--) {
+            buffer[i] = label[code];
+            code = parent[code];
+        }
+        return n;
+    }
 
-        char cStart = prefix.remove();
-        if (!this.subtries.containsKey(cStart)) return null;
-        return this.subtries.get(cStart)
-                .getByPrefix(prefix);
+    @Override
+    public void clear() {
+        if (++currentGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(generation, 0);
+            currentGeneration = 1;
+            // Sehr selten: Zähler läuft über, alle Listen einmal wirklich verwerfen.
+        }
     }
 }
@@ -0,0 +1,223 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Blockweise LZW-Kodierung für große Datenmengen. LZW selbst ist streng
+ * sequentiell, deshalb wird die Eingabe in Blöcke von höchstens {@code blockSize}
+ * Bytes geteilt, und jeder Block bekommt ein eigenes, leeres Wörterbuch.
+ * Die Blöcke werden parallel auf einem {@link ForkJoinPool} kodiert und in der
+ * ursprünglichen Reihenfolge geschrieben; ebenso wird parallel dekodiert.
+ * Gleichzeitig sind höchstens zwei Blöcke je Thread im Speicher.
+ * <p>
+ * Jeder Block beginnt wieder mit leerem Wörterbuch und kostet dadurch etwas
+ * Kompression. Bei Blöcken von einigen MB fällt das kaum ins Gewicht, solange
+ * das Wörterbuch ohnehin regelmäßig zurückgesetzt wird.
+ * <p>
+ * Format: Wörterbuchgröße in Bit und Richtlinie (je 8 Bit), danach je Block
+ * Originallänge (32 Bit), Länge der Nutzdaten (32 Bit) und die Nutzdaten, ein
+ * vollständiger Strom von {@link LzwOutputStream}. Eine Originallänge von 0
+ * beendet die Blöcke.
+ */
+public final class BlockLzw {
+    public static final int DEFAULT_BLOCK_SIZE = 4 << 20;
+    // Standard-Blockgröße: 4 MB.
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    // Größtes Byte-Array, das jede JVM anlegen kann.
+
+    private final int dictBitSize;
+    private final LZW.Dictionary dictionary;
+    private final LZW.ResetPolicy resetPolicy;
+
+    private final int blockSize;
+    // Maximale Anzahl Originalbytes je Block.
+
+    private final ForkJoinPool pool;
+    // Threads, auf denen die Blöcke kodiert und dekodiert werden. Gehört dem Aufrufer.
+
+    public BlockLzw(int dictBitSize) {
+        this(dictBitSize, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public BlockLzw(int dictBitSize, int blockSize, ForkJoinPool pool) {
+        this(dictBitSize, LZW.Dictionary.HASH, LZW.ResetPolicy.RESET, blockSize, pool);
+    }
+
+    public BlockLzw(int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy,
+                    int blockSize, ForkJoinPool pool) {
+        CodeAllocator.checkWidth(dictBitSize);
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Ungültige Blockgröße: " + blockSize);
+        }
+        this.dictBitSize = dictBitSize;
+        this.dictionary = dictionary;
+        this.resetPolicy = resetPolicy;
+        this.blockSize = blockSize;
+        this.pool = pool;
+    }
+
+    /**
+     * Ein kodierter oder dekodierter Block mit der Länge seiner Originaldaten.
+     */
+    private static final class Block {
+        final int rawLength;
+        final byte[] data;
+
+        Block(int rawLength, byte[] data) {
+            this.rawLength = rawLength;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Kodiert den gesamten Eingabestrom blockweise in den Ausgabestrom.
+     * Keiner der Ströme wird geschlossen.
+     */
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(dictBitSize);
+        data.writeByte(resetPolicy.ordinal());
+
+        ArrayDeque<ForkJoinTask<Block>> pending = new ArrayDeque<>();
+        int window = 2 * pool.getParallelism();
+
+        boolean eof = false;
+        try {
+            while (!eof || !pending.isEmpty()) {
+                byte[] block = eof ? new byte[0] : in.readNBytes(blockSize);
+                if (block.length > 0) {
+                    pending.add(pool.submit(() -> encodeBlock(block, dictBitSize, dictionary, resetPolicy)));
+                    // Kodiert den Block im Hintergrund, während der nächste gelesen wird.
+                } else {
+                    eof = true;
+                }
+
+                while (!pending.isEmpty() && (eof || pending.size() >= window || pending.peek().isDone())) {
+                    Block encoded = join(pending.remove());
+                    data.writeInt(encoded.rawLength);
+                    data.writeInt(encoded.data.length);
+                    data.write(encoded.data);
+                }
+                // Schreibt fertige Blöcke in der ursprünglichen Reihenfolge.
+            }
+        } finally {
+            cancelAll(pending);
+            // Nur nach einem Fehler sind hier noch Blöcke übrig.
+        }
+        data.writeInt(0);
+        data.flush();
+    }
+
+    /**
+     * Dekodiert einen mit {@link #encode(InputStream, OutputStream)} erzeugten Strom.
+     * Wörterbuchgröße und Richtlinie stehen im Strom; es wird genau bis zur
+     * Endemarkierung gelesen.
+     */
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int width = data.readUnsignedByte();
+        int policy = data.readUnsignedByte();
+        if (policy >= LZW.ResetPolicy.values().length) {
+            throw new IOException("Ungültige Richtlinie: " + policy);
+        }
+        try {
+            CodeAllocator.checkWidth(width);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+        LZW.ResetPolicy resetPolicy = LZW.ResetPolicy.values()[policy];
+
+        ArrayDeque<ForkJoinTask<Block>> pending = new ArrayDeque<>();
+        int window = 2 * pool.getParallelism();
+
+        boolean eof = false;
+        try {
+            while (!eof || !pending.isEmpty()) {
+                int rawLength = eof ? 0 : data.readInt();
+                if (rawLength != 0) {
+                    int payloadLength = data.readInt();
+                    if (rawLength < 0 || payloadLength < 0
+                            || rawLength > Math.min(MAX_ARRAY_LENGTH, maxRawLength(payloadLength))) {
+                        throw new IOException("Ungültiger Blockheader: " + rawLength + "/" + payloadLength);
+                    }
+                    byte[] payload = data.readNBytes(payloadLength);
+                    if (payload.length != payloadLength) {
+                        throw new EOFException("Block endet nach " + payload.length + " von " + payloadLength + " Bytes");
+                    }
+                    // readNBytes wächst mit den gelesenen Daten, eine falsche Länge legt kein riesiges Array an.
+                    pending.add(pool.submit(() -> decodeBlock(payload, rawLength, width, dictionary, resetPolicy)));
+                } else {
+                    eof = true;
+                }
+
+                while (!pending.isEmpty() && (eof || pending.size() >= window || pending.peek().isDone())) {
+                    Block decoded = join(pending.remove());
+                    out.write(decoded.data);
+                }
+            }
+        } finally {
+            cancelAll(pending);
+            // Ein beschädigter Block hält die übrigen an, statt sie weiter zu dekodieren.
+        }
+        out.flush();
+    }
+
+    /**
+     * Obergrenze für die Originallänge eines Blocks mit {@code payloadLength} Bytes
+     * Nutzdaten. Jeder Code hat mindestens 9 Bit, und jeder neue Eintrag ist nur
+     * ein Zeichen länger als sein Präfix: Der i-te Code steht für höchstens i Bytes,
+     * n Codes also für höchstens n(n+1)/2.
+     */
+    static long maxRawLength(int payloadLength) {
+        long codes = (long) payloadLength * 8 / CodeAllocator.MIN_CODE_WIDTH;
+        return codes * (codes + 1) / 2;
+    }
+
+    private static Block encodeBlock(byte[] block, int dictBitSize, LZW.Dictionary dictionary,
+                                     LZW.ResetPolicy resetPolicy) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(block.length / 2);
+        try (LzwOutputStream lzwOut = new LzwOutputStream(payload, dictBitSize, dictionary, resetPolicy)) {
+            lzwOut.write(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Block(block.length, payload.toByteArray());
+    }
+
+    private static Block decodeBlock(byte[] payload, int rawLength, int dictBitSize, LZW.Dictionary dictionary,
+                                     LZW.ResetPolicy resetPolicy) {
+        byte[] raw = new byte[rawLength];
+        try {
+            LzwInputStream lzwIn = new LzwInputStream(new ByteArrayInputStream(payload), dictBitSize,
+                    dictionary, resetPolicy);
+            int n = lzwIn.readNBytes(raw, 0, rawLength);
+            if (n != rawLength || lzwIn.read() >= 0) {
+                throw new IOException("Block hat nicht die angegebene Länge " + rawLength);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Block(rawLength, raw);
+    }
+
+    /**
+     * Bricht noch nicht begonnene Aufgaben ab und wartet auf die bereits laufenden.
+     */
+    private static void cancelAll(Collection<? extends ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) task.cancel(false);
+        for (ForkJoinTask<?> task : tasks) task.quietlyJoin();
+    }
+
+    private static Block join(ForkJoinTask<Block> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
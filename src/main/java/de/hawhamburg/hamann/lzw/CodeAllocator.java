@@ -0,0 +1,183 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Vergibt die Codes des Wörterbuchs nach der gewählten {@link LZW.ResetPolicy}.
+ * Encoder und Decoder benutzen dieselbe Klasse und rufen sie an denselben
+ * Stellen auf, so dass beide Wörterbücher gleich bleiben:
+ * Nach jedem ausgegebenen Code liefert {@link #reserve(int)} den Platz für den
+ * nächsten Eintrag; der Encoder legt ihn sofort an, der Decoder erst mit dem
+ * nächsten Code, dessen erstes Byte er dafür braucht.
+ */
+final class CodeAllocator {
+    static final int CLEAR = 256;
+    // Code, mit dem der Encoder das Zurücksetzen des Wörterbuchs ankündigt.
+
+    static final int END = 257;
+    // Code, mit dem der Encoder das Ende der Daten markiert. Danach folgen nur noch Füllbits.
+
+    static final int FLUSH = 258;
+    // Code für einen Synchronisationspunkt: Danach folgen Füllbits bis zur Byte-Grenze,
+    // das Wörterbuch bleibt erhalten. Der zuvor reservierte Eintrag wird nicht angelegt.
+
+    static final int FIRST_CODE = 259;
+    // Erster Code für Einträge aus mehreren Zeichen.
+
+    static final int MIN_CODE_WIDTH = 9;
+    // Startbreite der Codes, wächst bis maxWidth.
+
+    static final int MAX_CODE_WIDTH = 23;
+    // Präfixcode plus Byte muss in einen positiven int passen (siehe PrefixHashTable).
+
+    private final CodeTable dictionary;
+    private final LZW.ResetPolicy policy;
+    private final LruCodes lru;
+    // Nur bei EVICT_LRU, sonst null.
+
+    private final int maxCodes;
+    private final int maxWidth;
+
+    private int nextCode = FIRST_CODE;
+    // Nächster freier Code.
+
+    private long resets;
+    // Anzahl der Zurücksetzungen, für die Statistik.
+
+    CodeAllocator(CodeTable dictionary, int maxWidth, LZW.ResetPolicy policy) {
+        this.dictionary = dictionary;
+        this.policy = policy;
+        this.maxWidth = maxWidth;
+        this.maxCodes = 1 << maxWidth;
+        this.lru = policy == LZW.ResetPolicy.EVICT_LRU ? new LruCodes(maxCodes) : null;
+    }
+
+    /**
+     * Legt das gewählte Wörterbuch des Encoders für alle Codes bis {@code maxWidth} Bit an.
+     * Der Encoder sucht selbst darin und verwaltet es mit
+     * {@link #CodeAllocator(CodeTable, int, LZW.ResetPolicy)}.
+     */
+    static LzwDictionary newDictionary(int maxWidth, LZW.Dictionary dictionary) {
+        checkWidth(maxWidth);
+        int maxCodes = 1 << maxWidth;
+        return dictionary == LZW.Dictionary.TRIE ? new BSTree(maxCodes) : new HashDictionary(maxCodes);
+    }
+
+    /**
+     * Codevergabe für den Decoder: Er sucht nie, die Codetabelle ist deshalb
+     * nur eine {@link StringTable} ohne Hashtabelle.
+     */
+    static CodeAllocator createDecoder(int maxWidth, LZW.ResetPolicy policy) {
+        checkWidth(maxWidth);
+        return new CodeAllocator(new StringTable(1 << maxWidth), maxWidth, policy);
+    }
+
+    static void checkWidth(int maxWidth) {
+        if (maxWidth < MIN_CODE_WIDTH || maxWidth > MAX_CODE_WIDTH) {
+            throw new IllegalArgumentException("Ungültige Wörterbuchgröße: " + maxWidth + " Bit");
+        }
+    }
+
+    int expand(int code, byte[] buffer) {
+        return dictionary.expand(code, buffer);
+    }
+
+    int nextCode() {
+        return nextCode;
+    }
+
+    long resets() {
+        return resets;
+    }
+
+    boolean isFull() {
+        return nextCode >= maxCodes;
+    }
+
+    /**
+     * Bitbreite des nächsten Codes: Alle vergebenen Codes müssen hineinpassen,
+     * auch ein reservierter Platz {@code pendingSlot}, den der Decoder noch nicht angelegt hat.
+     */
+    int codeWidth(int pendingSlot) {
+        int width = 32 - Integer.numberOfLeadingZeros(codeLimit(pendingSlot) - 1);
+        return Math.min(maxWidth, Math.max(MIN_CODE_WIDTH, width));
+    }
+
+    /**
+     * Anzahl der Codes, die als nächstes vorkommen können, mit derselben Regel
+     * für {@code pendingSlot} wie {@link #codeWidth(int)}.
+     */
+    int codeLimit(int pendingSlot) {
+        return pendingSlot == nextCode ? nextCode + 1 : nextCode;
+    }
+
+    /**
+     * Code als Token ({@link LzwTokenSink}): Einzelzeichen und Steuercodes bleiben,
+     * Wörterbuchcodes werden zum Abstand vom neuesten möglichen Code.
+     */
+    int toToken(int code, int pendingSlot) {
+        return code < FIRST_CODE ? code : FIRST_CODE + codeLimit(pendingSlot) - 1 - code;
+    }
+
+    /**
+     * Umkehrung von {@link #toToken(int, int)}; ungültige Token ergeben -1.
+     */
+    int fromToken(int token, int pendingSlot) {
+        if (token < FIRST_CODE) return token;
+        int code = codeLimit(pendingSlot) - 1 - (token - FIRST_CODE);
+        return code >= FIRST_CODE ? code : -1;
+    }
+
+    /**
+     * Markiert einen ausgegebenen Code als benutzt.
+     */
+    void touch(int code) {
+        if (lru != null && code >= FIRST_CODE) lru.touch(code);
+    }
+
+    /**
+     * Liefert den Code für den Eintrag, der {@code prefix} verlängert, oder -1,
+     * wenn kein Eintrag angelegt wird. Ist das Wörterbuch voll, entscheidet die Richtlinie.
+     */
+    int reserve(int prefix) {
+        if (nextCode < maxCodes) return nextCode;
+        switch (policy) {
+            case RESET:
+                clear();
+                return -1;
+            case EVICT_LRU:
+                return lru.victim(prefix);
+            default:
+                return -1;
+                // FREEZE und FREEZE_AND_CLEAR: das Wörterbuch bleibt, wie es ist.
+        }
+    }
+
+    /**
+     * Legt den Eintrag {@code prefix} plus {@code b} auf dem reservierten Platz an.
+     */
+    void add(int prefix, int b, int slot) {
+        if (slot < nextCode) {
+            dictionary.remove(slot);
+            lru.removed(slot);
+            // Verdrängt das Blatt, dessen Code wiederverwendet wird.
+        } else {
+            nextCode++;
+        }
+        dictionary.add(prefix, b, slot);
+        if (lru != null) lru.added(slot, prefix);
+    }
+
+    void clear() {
+        dictionary.clear();
+        if (lru != null) lru.clear();
+        nextCode = FIRST_CODE;
+        resets++;
+    }
+
+    /**
+     * Leert das Wörterbuch für neue Daten, ohne als Zurücksetzung zu zählen.
+     */
+    void restart() {
+        clear();
+        resets = 0;
+    }
+}
@@ -0,0 +1,32 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Codetabelle für {@link LZW}, wie sie Encoder und Decoder gemeinsam brauchen.
+ * Jeder Eintrag ist ein früherer Code (Präfix) plus ein Byte, die Codes 0 bis 255
+ * sind die Einzelzeichen und immer vorhanden. Der Decoder löst Codes mit
+ * {@link #expand(int, byte[])} auf; suchen kann erst ein {@link LzwDictionary}.
+ */
+interface CodeTable {
+    /**
+     * Legt {@code code} als Präfix {@code prefix} plus {@code b} an.
+     * Der Eintrag darf noch nicht vorhanden sein.
+     */
+    void add(int prefix, int b, int code);
+
+    /**
+     * Entfernt den Eintrag {@code code}. Er darf kein Präfix eines anderen Eintrags sein.
+     */
+    void remove(int code);
+
+    /**
+     * Schreibt die Zeichenfolge von {@code code} an den Anfang von {@code buffer}.
+     *
+     * @return Länge der Zeichenfolge.
+     */
+    int expand(int code, byte[] buffer);
+
+    /**
+     * Entfernt alle Einträge außer den Einzelzeichen.
+     */
+    void clear();
+}
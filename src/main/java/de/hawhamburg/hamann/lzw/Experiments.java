@@ -0,0 +1,245 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Experimente mit verschiedenen Wörterbuchgrößen und Richtlinien.
+ * Jede Eingabedatei wird genau einmal in den Speicher gelesen; alle
+ * Konfigurationen kodieren und dekodieren dann parallel aus diesem Array,
+ * ohne Zwischendateien. Jede Dekodierung wird mit dem Original verglichen.
+ * <p>
+ * Aufruf: {@code Experiments [-w 9-16] [-p RESET,FREEZE] [-t Threads] [-o Datei.csv] [Datei ...]}.
+ * Die Wörterbuchgrößen liegen zwischen 9 und 23 Bit; bei ungültigen Argumenten
+ * wird nur dieser Aufruf ausgegeben.
+ * Ohne Dateien wird die PDF aus {@code resources/lzw} benutzt. Die Ergebnisse
+ * stehen danach in der CSV-Datei (Standard: {@code lzw_experiments.csv}).
+ * <p>
+ * Die Durchsätze gelten je Konfiguration. Mit mehr Threads als Kernen teilen sich
+ * die Konfigurationen die Rechenzeit und erscheinen langsamer, als sie sind.
+ */
+public final class Experiments {
+    private static final String CSV_HEADER = "file,bytes,dictBitSize,policy,encodedBytes,compressionRate,"
+            + "meanStringLength,codes,resets,encodeMBps,decodeMBps";
+
+    private static final String USAGE = "Aufruf: Experiments [-w 9-16] [-p RESET,FREEZE] [-t Threads]"
+            + " [-o Datei.csv] [Datei ...]";
+
+    private Experiments() {
+    }
+
+    /**
+     * Ergebnis einer Konfiguration für eine Datei.
+     */
+    public static final class Result {
+        public final String file;
+        public final int dictBitSize;
+        public final LZW.ResetPolicy policy;
+        public final LzwStats encoded;
+        public final LzwStats decoded;
+
+        Result(String file, int dictBitSize, LZW.ResetPolicy policy, LzwStats encoded, LzwStats decoded) {
+            this.file = file;
+            this.dictBitSize = dictBitSize;
+            this.policy = policy;
+            this.encoded = encoded;
+            this.decoded = decoded;
+        }
+
+        public double encodeMBps() {
+            return megabytesPerSecond(encoded.bytesIn(), encoded.codingNanos() + encoded.finishNanos());
+        }
+
+        public double decodeMBps() {
+            return megabytesPerSecond(decoded.bytesOut(), decoded.codingNanos() + decoded.finishNanos());
+        }
+
+        String csvLine() {
+            return String.format(Locale.US, "%s,%d,%d,%s,%d,%.4f,%.4f,%d,%d,%.2f,%.2f",
+                    file, encoded.bytesIn(), dictBitSize, policy, encoded.bytesOut(), encoded.compressionRate(),
+                    encoded.meanStringLength(), encoded.codes(), encoded.resets(), encodeMBps(), decodeMBps());
+        }
+    }
+
+    /**
+     * Kodiert und dekodiert {@code data} mit allen Kombinationen aus Wörterbuchgröße
+     * und Richtlinie, jede Kombination als eigene Aufgabe auf {@code executor}.
+     * Die Ergebnisse kommen in der Reihenfolge der Konfigurationen zurück.
+     */
+    public static List<Result> run(String name, byte[] data, int[] dictBitSizes, List<LZW.ResetPolicy> policies,
+                                   ExecutorService executor) throws IOException {
+        List<Future<Result>> tasks = new ArrayList<>();
+        for (int dictBitSize : dictBitSizes) {
+            CodeAllocator.checkWidth(dictBitSize);
+            for (LZW.ResetPolicy policy : policies) {
+                tasks.add(executor.submit(() -> measure(name, data, dictBitSize, policy)));
+            }
+        }
+
+        List<Result> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Result> task : tasks) results.add(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Experimente unterbrochen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause());
+        }
+        return results;
+    }
+
+    private static Result measure(String name, byte[] data, int dictBitSize, LZW.ResetPolicy policy) {
+        try {
+            long start = System.nanoTime();
+            ByteArrayOutputStream encodedBytes = new ByteArrayOutputStream(data.length / 2);
+            LzwOutputStream lzwOut = new LzwOutputStream(encodedBytes, dictBitSize, LZW.Dictionary.HASH, policy);
+            long coding = System.nanoTime();
+            lzwOut.write(data);
+            long finish = System.nanoTime();
+            lzwOut.close();
+            LzwStats encoded = LZW.timed(lzwOut.stats(), start, coding, finish);
+
+            start = System.nanoTime();
+            byte[] decodedBytes = new byte[data.length];
+            LzwInputStream lzwIn = new LzwInputStream(new ByteArrayInputStream(encodedBytes.toByteArray()),
+                    dictBitSize, LZW.Dictionary.HASH, policy);
+            coding = System.nanoTime();
+            int n = lzwIn.readNBytes(decodedBytes, 0, decodedBytes.length);
+            finish = System.nanoTime();
+            boolean complete = n == data.length && lzwIn.read() < 0;
+            LzwStats decoded = LZW.timed(lzwIn.stats(), start, coding, finish);
+
+            if (!complete || !Arrays.equals(data, decodedBytes)) {
+                throw new IOException("Dekodierung weicht ab: " + name + ", " + dictBitSize + " Bit, " + policy);
+            }
+            return new Result(name, dictBitSize, policy, encoded, decoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes * 1e3 / nanos;
+        // Bytes je Nanosekunde mal 1000 = MB (10^6 Bytes) je Sekunde.
+    }
+
+    /**
+     * Schreibt die Ergebnisse mit Kopfzeile als CSV.
+     */
+    public static void writeCsv(List<Result> results, Path csv) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv))) {
+            writer.println(CSV_HEADER);
+            for (Result result : results) writer.println(result.csvLine());
+        }
+    }
+
+    /**
+     * Wert der Option vor {@code args[i]}.
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Wert fehlt für " + args[i - 1]);
+        return args[i];
+    }
+
+    private static LZW.ResetPolicy policy(String name) {
+        try {
+            return LZW.ResetPolicy.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unbekannte Richtlinie: " + name);
+        }
+    }
+
+    /**
+     * Wörterbuchgrößen aus {@code 9-16} oder einer einzelnen Zahl, jede zwischen
+     * 9 und 23 Bit.
+     */
+    private static int[] widths(String range) {
+        String[] bounds = range.split("-", -1);
+        if (bounds.length > 2) throw new IllegalArgumentException("Ungültiger Bereich: " + range);
+        int from;
+        int to;
+        try {
+            from = Integer.parseInt(bounds[0].trim());
+            to = Integer.parseInt(bounds[bounds.length - 1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültiger Bereich: " + range);
+        }
+        CodeAllocator.checkWidth(from);
+        CodeAllocator.checkWidth(to);
+        if (from > to) throw new IllegalArgumentException("Ungültiger Bereich: " + range);
+        int[] widths = new int[to - from + 1];
+        for (int w = from; w <= to; w++) widths[w - from] = w;
+        return widths;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] dictBitSizes = {10, 11, 12};
+        List<LZW.ResetPolicy> policies = List.of(LZW.ResetPolicy.RESET);
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path csv = Path.of("lzw_experiments.csv");
+        List<Path> files = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-w":
+                        dictBitSizes = widths(value(args, ++i));
+                        break;
+                    case "-p":
+                        policies = new ArrayList<>();
+                        for (String policy : value(args, ++i).split(",")) policies.add(policy(policy.trim()));
+                        break;
+                    case "-t":
+                        threads = Integer.parseInt(value(args, ++i));
+                        if (threads < 1) throw new IllegalArgumentException("Ungültige Anzahl Threads: " + threads);
+                        break;
+                    case "-o":
+                        csv = Path.of(value(args, ++i));
+                        break;
+                    default:
+                        files.add(Path.of(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            // Falsche Argumente: Hinweis statt Stacktrace.
+        }
+        if (files.isEmpty()) files.add(Path.of("resources", "lzw", "ad_7_DynamischesProgrammieren.pdf"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                byte[] data = Files.readAllBytes(file);
+                // Jede Datei wird nur einmal gelesen, alle Konfigurationen teilen sich das Array.
+
+                for (Result result : run(file.toString(), data, dictBitSizes, policies, executor)) {
+                    System.out.printf("%s | %d Bit | %s | Kompressionsrate: %.2f%% | Kodierung: %.1f MB/s"
+                                    + " | Dekodierung: %.1f MB/s%n", result.file, result.dictBitSize, result.policy,
+                            result.encoded.compressionRate(), result.encodeMBps(), result.decodeMBps());
+                    results.add(result);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        writeCsv(results, csv);
+        System.out.println("Ergebnisse in " + csv + " gespeichert.");
+    }
+}
@@ -0,0 +1,55 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Wörterbuch aus einer Hashtabelle für die Suche ({@link PrefixHashTable})
+ * und Arrays für die Auflösung der Codes ({@link StringTable}).
+ */
+final class HashDictionary implements LzwDictionary {
+    private final PrefixHashTable codes;
+    // (Präfixcode, Byte) -> Code.
+
+    private final StringTable strings;
+    // Code -> (Präfixcode, Byte).
+
+    private int highestCode = -1;
+    // Größter seit dem letzten Zurücksetzen angelegte Code, -1 wenn keiner.
+
+    HashDictionary(int maxCodes) {
+        codes = new PrefixHashTable(maxCodes);
+        strings = new StringTable(maxCodes);
+    }
+
+    @Override
+    public int find(int prefix, int b) {
+        return codes.find(prefix, b);
+    }
+
+    @Override
+    public void add(int prefix, int b, int code) {
+        codes.put(prefix, b, code);
+        strings.add(prefix, b, code);
+        highestCode = Math.max(highestCode, code);
+    }
+
+    @Override
+    public void remove(int code) {
+        codes.remove(strings.prefix(code), strings.suffix(code));
+    }
+
+    @Override
+    public int expand(int code, byte[] buffer) {
+        return strings.expand(code, buffer);
+    }
+
+    @Override
+    public void clear() {
+        if (highestCode - CodeAllocator.FIRST_CODE < codes.capacity() / 8) {
+            for (int code = CodeAllocator.FIRST_CODE; code <= highestCode; code++) remove(code);
+            // Nach kurzen Nachrichten ist einzelnes Entfernen billiger als die ganze Tabelle zu leeren.
+        } else {
+            codes.clear();
+        }
+        highestCode = -1;
+        // Die Arrays werden beim nächsten Anlegen der Codes einfach überschrieben.
+    }
+}
@@ -1,26 +1,45 @@
 package de.hawhamburg.hamann.lzw;
 
-import com.github.jinahya.bit.io.*; // Import für Bit-Eingabe/Ausgabe-Bibliothek
-
 import java.io.*; // Import für Ein-/Ausgabeströme
 import java.nio.file.Files; // Import für Dateisystemoperationen
 import java.nio.file.Path; // Import für Pfadoperationen
-import java.util.*; // Import für Datenstrukturen wie List und Map
 
 public class LZW {
 
-    private static final boolean DEBUG = true; // Aktiviert Debug-Ausgaben
-    private static final int CHAR_BIT_SIZE = 8; // Bitgröße für ein Zeichen (1 Byte)
+    public enum Dictionary { // Auswählbare Datenstruktur für das Wörterbuch
+        HASH, // Hashtabelle über (Präfixcode, Byte) und Arrays für die Rückrichtung
+        TRIE // Trie mit Kinderlisten, jeder Knoten ist ein Code (siehe BSTree)
+    }
+
+    public enum ResetPolicy { // Verhalten, wenn alle Codes vergeben sind
+        RESET, // Wörterbuch sofort leeren und neu aufbauen
+        FREEZE, // Wörterbuch behalten und nicht mehr verändern
+        FREEZE_AND_CLEAR, // Behalten, aber mit CLEAR-Code leeren, sobald die Kompressionsrate sinkt (wie compress)
+        EVICT_LRU // Das am längsten nicht benutzte Blatt verdrängen und seinen Code wiederverwenden
+    }
+
+    public static final int MIN_DICT_BIT_SIZE = CodeAllocator.MIN_CODE_WIDTH; // Kleinste erlaubte Wörterbuchgröße in Bit
+    public static final int MAX_DICT_BIT_SIZE = CodeAllocator.MAX_CODE_WIDTH; // Größte erlaubte Wörterbuchgröße in Bit
+    static final boolean TRACE = false; // Ablaufverfolgung je Code in den Strömen, nur zur Fehlersuche auf true setzen
+    private static final int CHUNK_SIZE = 1 << 16; // Blockgröße beim Kopieren zwischen Datei und Strom
     private final Path filePath; // Pfad zur Eingabedatei
     private final Path encodedPath; // Pfad zur codierten Ausgabe
     private final Path decodedPath; // Pfad zur dekodierten Ausgabe
 
-    private final int dictBitSize; // Maximale Bitgröße für Wörterbucheinträge
-    private final int chars; // Anzahl der möglichen Zeichen (2^8 für ASCII)
-    private HashMap<List<Character>, Integer> dictionary; // Wörterbuch für Kodierung und Dekodierung
+    private final int dictBitSize; // Maximale Bitgröße für Wörterbucheinträge und Codes
+    private final Dictionary dictionary; // Datenstruktur für das Wörterbuch
+    private final ResetPolicy resetPolicy; // Verhalten bei vollem Wörterbuch
 
     // Konstruktor: Initialisiert Pfade und Variablen
     public LZW(Path filePath, int dictBitSize) {
+        this(filePath, dictBitSize, Dictionary.HASH);
+    }
+
+    public LZW(Path filePath, int dictBitSize, Dictionary dictionary) {
+        this(filePath, dictBitSize, dictionary, ResetPolicy.RESET);
+    }
+
+    public LZW(Path filePath, int dictBitSize, Dictionary dictionary, ResetPolicy resetPolicy) {
         this.filePath = filePath; // Setzt den Dateipfad
         Path parent = this.filePath.getParent(); // Holt das übergeordnete Verzeichnis
         if (parent == null) {
@@ -28,146 +47,72 @@ public class LZW {
         }
         this.encodedPath = parent.resolve("encoded_" + filePath.getFileName()); // Pfad für codierte Datei
         this.decodedPath = parent.resolve("decoded_" + filePath.getFileName()); // Pfad für dekodierte Datei
+        CodeAllocator.checkWidth(dictBitSize); // Platz für die Steuercodes, und Präfixcode plus Byte müssen in einen positiven int passen
         this.dictBitSize = dictBitSize; // Maximale Bitgröße für Wörterbucheinträge
-        this.chars = (int) Math.pow(2, CHAR_BIT_SIZE); // Anzahl der Zeichen (256 für ASCII)
+        this.dictionary = dictionary; // Gewählte Datenstruktur für das Wörterbuch
+        this.resetPolicy = resetPolicy; // Gewähltes Verhalten bei vollem Wörterbuch
     }
 
-    // Kodierungsfunktion
-    public void encode() {
-        initDictionary(); // Wörterbuch initialisieren
+    // Kodierungsfunktion, liefert die Kennzahlen des Durchlaufs
+    public LzwStats encode() {
+        long start = System.nanoTime();
+        long coding;
+        long finish;
+        LzwOutputStream lzwOut;
 
         try (InputStream is = new FileInputStream(filePath.toFile())) { // Eingabestrom öffnen
-            try (OutputStream os = new FileOutputStream(encodedPath.toFile())) { // Ausgabestrom für codierte Datei öffnen
-                BitOutput bitOut = new DefaultBitOutput(new StreamByteOutput(os)); // Bit-Ausgabe initialisieren
-
-                List<Character> prefix = new ArrayList<>(); // Präfix für Kodierung
-                int codeNummer = chars; // Startwert für Codes jenseits des ASCII-Bereichs
-                int statStringLength = 0; // Statistik: Gesamtzahl der Zeichen in kodierten Strings
-                int statCodes = 0; // Statistik: Gesamtzahl der generierten Codes
-
-                int current; // Aktuelles Zeichen
-                while ((current = is.read()) != -1) { // Lesen, bis das Ende der Datei erreicht ist
-                    List<Character> extendedPrefix = new ArrayList<>(prefix); // Präfix erweitern
-                    extendedPrefix.add((char) current); // Aktuelles Zeichen anhängen
-
-                    if (!dictionary.containsKey(extendedPrefix)) { // Wenn erweiterter Präfix nicht im Wörterbuch
-                        dictionary.put(extendedPrefix, codeNummer++); // Eintrag hinzufügen
-                        int code = dictionary.get(prefix); // Code des aktuellen Präfixes holen
-                        bitOut.writeInt(true, dictBitSize, code); // Code in die Ausgabe schreiben
-                        statStringLength += prefix.size(); // Statistik aktualisieren
-                        statCodes++;
-
-                        if (DEBUG) { // Debug-Ausgabe
-                            System.out.println(String.format("Kodiert: Präfix = %s | Code = %d | Eingefügt: %s mit Code = %d",
-                                    prefix, code, extendedPrefix, codeNummer - 1));
-                        }
-
-                        if (codeNummer >= (1 << dictBitSize)) { // Wörterbuchgröße überschritten
-                            initDictionary(); // Wörterbuch zurücksetzen
-                            codeNummer = chars; // Codes neu starten
-                        }
-
-                        prefix = new ArrayList<>(); // Präfix zurücksetzen
-                        prefix.add((char) current); // Neues Präfix starten
-                    } else {
-                        prefix = extendedPrefix; // Präfix erweitern
-                    }
-                }
-
-                if (!prefix.isEmpty()) { // Letztes Präfix verarbeiten
-                    int code = dictionary.get(prefix); // Code des Präfixes holen
-                    bitOut.writeInt(true, dictBitSize, code); // Code in die Ausgabe schreiben
-                    statStringLength += prefix.size(); // Statistik aktualisieren
-                    statCodes++;
+            lzwOut = new LzwOutputStream(new FileOutputStream(encodedPath.toFile()), dictBitSize, dictionary, resetPolicy); // Kodierten Ausgabestrom öffnen
+            try (lzwOut) {
+                byte[] chunk = new byte[CHUNK_SIZE]; // Eingabe blockweise lesen, der Strom puffert selbst
+                coding = System.nanoTime();
+                int n;
+                while ((n = is.read(chunk)) > 0) {
+                    lzwOut.write(chunk, 0, n);
                 }
-
-                bitOut.align(1); // Ausgabe auf Byte-Grenze ausrichten
-
-                System.out.println("Mittlere codierte Stringlänge: " + (1.0 * statStringLength / statCodes));
-                System.out.println("Kompressionsrate: " + calculateCompressionRate() + "%");
-            }
+                finish = System.nanoTime();
+            } // Schließen schreibt den END-Code
         } catch (IOException e) {
             throw new RuntimeException(e); // Ausnahmebehandlung
         }
+        return timed(lzwOut.stats(), start, coding, finish);
     }
 
-    // Dekodierungsfunktion
-    public void decode() {
-        initDictionary(); // Wörterbuch initialisieren
+    // Dekodierungsfunktion, liefert die Kennzahlen des Durchlaufs
+    public LzwStats decode() {
+        long start = System.nanoTime();
+        long coding;
+        long finish;
+        LzwInputStream lzwIn;
 
-        try (InputStream is = new FileInputStream(encodedPath.toFile())) { // Codierten Eingabestrom öffnen
-            BitInput bitIn = new DefaultBitInput(new StreamByteInput(is)); // Bit-Eingabe initialisieren
+        try (InputStream is = new BufferedInputStream(new FileInputStream(encodedPath.toFile()))) { // Codierten Eingabestrom öffnen
+            lzwIn = new LzwInputStream(is, dictBitSize, dictionary, resetPolicy);
             try (OutputStream os = new FileOutputStream(decodedPath.toFile())) { // Dekodierten Ausgabestrom öffnen
-
-                int codeNummer = chars; // Startwert für neue Codes
-                int current = bitIn.readInt(true, dictBitSize); // Ersten Code lesen
-                List<Character> prefix = getByNum(current); // Präfix für ersten Code
-                if (prefix == null || prefix.isEmpty()) { // Überprüfen, ob gültig
-                    throw new IllegalStateException("Ungültiger Startcode: " + current);
-                }
-                writeString(os, prefix); // Präfix in die Ausgabe schreiben
-
-                while (is.available() > 0) { // Lesen, bis Ende der Datei erreicht
-                    current = bitIn.readInt(true, dictBitSize); // Nächsten Code lesen
-                    List<Character> entry;
-
-                    if (dictionary.containsValue(current)) { // Wenn Code im Wörterbuch
-                        entry = getByNum(current);
-                    } else { // Wenn Code nicht im Wörterbuch
-                        entry = new ArrayList<>(prefix);
-                        entry.add(prefix.get(0));
-                    }
-
-                    writeString(os, entry); // Zeichenfolge in die Ausgabe schreiben
-
-                    List<Character> newEntry = new ArrayList<>(prefix); // Neuen Eintrag erstellen
-                    newEntry.add(entry.get(0)); // Ersten Buchstaben des neuen Codes hinzufügen
-                    dictionary.put(newEntry, codeNummer++); // Wörterbuch aktualisieren
-
-                    if (DEBUG) { // Debug-Ausgabe
-                        System.out.println(String.format("Dekodiert: %s | Eingefügt: %s mit Code = %d",
-                                entry, newEntry, codeNummer - 1));
-                    }
-
-                    if (codeNummer >= (1 << dictBitSize)) { // Wörterbuchgröße überschritten
-                        initDictionary(); // Wörterbuch zurücksetzen
-                        codeNummer = chars; // Codes neu starten
-                    }
-
-                    prefix = entry; // Präfix aktualisieren
+                byte[] chunk = new byte[CHUNK_SIZE];
+                coding = System.nanoTime();
+                int n;
+                while ((n = lzwIn.read(chunk)) > 0) {
+                    os.write(chunk, 0, n);
                 }
+                finish = System.nanoTime();
             }
         } catch (IOException e) {
             throw new RuntimeException(e); // Ausnahmebehandlung
         }
+        return timed(lzwIn.stats(), start, coding, finish);
     }
 
-    // Initialisiert das Wörterbuch mit ASCII-Zeichen
-    private void initDictionary() {
-        dictionary = new HashMap<>(); // Neues Wörterbuch erstellen
-        for (int i = 0; i < chars; i++) { // Für jedes Zeichen im ASCII-Bereich
-            dictionary.put(List.of((char) i), i); // Eintrag hinzufügen
-        }
-        if (DEBUG) {
-            System.out.println("Wörterbuch initialisiert mit " + chars + " Einträgen.");
-        }
+    // Trägt die Zeiten der drei Phasen in die Kennzahlen ein
+    static LzwStats timed(LzwStats stats, long start, long coding, long finish) {
+        stats.setupNanos = coding - start;
+        stats.codingNanos = finish - coding;
+        stats.finishNanos = System.nanoTime() - finish;
+        return stats;
     }
 
-    // Hilfsmethode: Holt die Zeichenfolge zu einem Code
-    private List<Character> getByNum(int code) {
-        for (Map.Entry<List<Character>, Integer> entry : dictionary.entrySet()) {
-            if (entry.getValue() == code) {
-                return entry.getKey();
-            }
-        }
-        return null; // Code nicht gefunden
-    }
-
-    // Schreibt eine Zeichenfolge in einen Ausgabestrom
-    private void writeString(OutputStream os, List<Character> charList) throws IOException {
-        for (char c : charList) { // Für jedes Zeichen in der Liste
-            os.write(c); // Zeichen in den Ausgabestrom schreiben
-        }
+    // Ausgabe für die Fehlersuche. Nur aktiv, wenn TRACE beim Kompilieren true ist;
+    // sonst entfernt der Compiler alle Aufrufe, die mit "if (TRACE)" geschützt sind.
+    static void trace(String format, Object... args) {
+        System.err.println(String.format(format, args));
     }
 
     // Berechnet die Kompressionsrate
@@ -0,0 +1,97 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.util.Arrays;
+
+/**
+ * Reihenfolge der Codes nach ihrer letzten Benutzung, für das Verdrängen
+ * einzelner Einträge, wenn das Wörterbuch voll ist. Verdrängt werden nur
+ * Blätter (Codes, die kein Präfix eines anderen Codes sind), damit keine
+ * anderen Einträge ungültig werden.
+ * <p>
+ * Die Liste ist doppelt verkettet über Arrays, vorne steht der am längsten
+ * nicht benutzte Code. Innere Knoten, die bei der Suche nach einem Blatt
+ * vorne stehen, wandern ans Ende (zweite Chance), damit die Suche im Mittel
+ * nur wenige Schritte braucht.
+ */
+final class LruCodes {
+    private final int[] previous;
+    // Vorgänger in der Liste, -1 am Anfang.
+
+    private final int[] next;
+    // Nachfolger in der Liste, -1 am Ende.
+
+    private final int[] parent;
+    // Präfixcode jedes Eintrags.
+
+    private final int[] children;
+    // Anzahl der Einträge, die diesen Code als Präfix haben.
+
+    private int head = -1;
+    private int tail = -1;
+    private int size;
+
+    LruCodes(int maxCodes) {
+        previous = new int[maxCodes];
+        next = new int[maxCodes];
+        parent = new int[maxCodes];
+        children = new int[maxCodes];
+    }
+
+    /**
+     * Ein neuer Eintrag gilt als gerade benutzt.
+     */
+    void added(int code, int prefix) {
+        parent[code] = prefix;
+        children[code] = 0;
+        children[prefix]++;
+        append(code);
+    }
+
+    void touch(int code) {
+        unlink(code);
+        append(code);
+    }
+
+    void removed(int code) {
+        unlink(code);
+        children[parent[code]]--;
+    }
+
+    /**
+     * Liefert das am längsten nicht benutzte Blatt außer {@code exclude}, oder -1.
+     */
+    int victim(int exclude) {
+        for (int i = 0; i < size; i++) {
+            int code = head;
+            if (children[code] == 0 && code != exclude) return code;
+            unlink(code);
+            append(code);
+            // Zweite Chance für innere Knoten.
+        }
+        return -1;
+    }
+
+    void clear() {
+        head = -1;
+        tail = -1;
+        size = 0;
+        Arrays.fill(children, 0);
+    }
+
+    private void append(int code) {
+        previous[code] = tail;
+        next[code] = -1;
+        if (tail >= 0) next[tail] = code;
+        else head = code;
+        tail = code;
+        size++;
+    }
+
+    private void unlink(int code) {
+        if (previous[code] >= 0) next[previous[code]] = next[code];
+        else head = next[code];
+        if (next[code] >= 0) previous[next[code]] = previous[code];
+        else tail = previous[code];
+        size--;
+    }
+}
@@ -0,0 +1,104 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wiederverwendbarer Encoder und Decoder für viele kurze Nachrichten im Speicher.
+ * Wörterbücher und Puffer werden einmal angelegt und vor jeder Nachricht nur
+ * zurückgesetzt; danach legt das Kodieren und Dekodieren keine Objekte mehr an.
+ * Das Format ist dasselbe wie bei {@link LzwOutputStream}.
+ * <p>
+ * Nicht threadsicher: Jeder Thread braucht seinen eigenen Kontext.
+ */
+public final class LzwContext {
+    private static final int CHUNK_SIZE = 1 << 12;
+    // Zwischenpuffer für Direct Buffer, die kein Array haben.
+
+    private final int dictBitSize;
+    private final LzwOutputStream encoder;
+    private final LzwInputStream decoder;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    public LzwContext(int dictBitSize) {
+        this(dictBitSize, LZW.Dictionary.HASH, LZW.ResetPolicy.RESET);
+    }
+
+    public LzwContext(int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        this.dictBitSize = dictBitSize;
+        this.encoder = new LzwOutputStream(empty, dictBitSize, dictionary, resetPolicy);
+        this.decoder = new LzwInputStream(empty, dictBitSize, dictionary, resetPolicy);
+    }
+
+    /**
+     * Obergrenze für die Länge kodierter Daten aus {@code length} Bytes, einschließlich
+     * der Reserve, die {@link de.hawhamburg.hamann.bitio.BitWriter} am Pufferende braucht.
+     */
+    public static int maxEncodedLength(int length, int dictBitSize) {
+        long codes = length + length / 1000 + 2;
+        // Höchstens ein Code je Byte, dazu END und die CLEAR-Codes von FREEZE_AND_CLEAR.
+        return Math.toIntExact(codes * dictBitSize / 8 + 16);
+    }
+
+    /**
+     * Kodiert die Bytes zwischen Position und Limit von {@code src} nach {@code dst}.
+     * Danach steht {@code src} am Limit und {@code dst} hinter den kodierten Daten.
+     *
+     * @throws BufferOverflowException wenn {@code dst} nicht reicht; mit
+     *                                 {@link #maxEncodedLength(int, int)} freien Bytes reicht er immer.
+     */
+    public LzwStats encode(ByteBuffer src, ByteBuffer dst) throws IOException {
+        encoder.restart(dst);
+        if (src.hasArray()) {
+            encoder.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            while (src.hasRemaining()) {
+                int n = Math.min(chunk.length, src.remaining());
+                src.get(chunk, 0, n);
+                encoder.write(chunk, 0, n);
+            }
+        }
+        encoder.finish();
+        return encoder.stats();
+    }
+
+    /**
+     * Dekodiert die Daten aus {@code src} nach {@code dst}. Danach steht {@code src}
+     * am Limit und {@code dst} hinter den dekodierten Bytes.
+     *
+     * @throws BufferOverflowException wenn die Daten nicht in {@code dst} passen.
+     */
+    public LzwStats decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+        InputStream in = decoder(src);
+        int n;
+        if (dst.hasArray()) {
+            while ((n = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining())) > 0) {
+                dst.position(dst.position() + n);
+            }
+        } else {
+            while ((n = in.read(chunk, 0, Math.min(chunk.length, dst.remaining()))) > 0) dst.put(chunk, 0, n);
+        }
+        if (!dst.hasRemaining() && in.read() >= 0) throw new BufferOverflowException();
+        src.position(src.limit());
+        return decoder.stats();
+    }
+
+    /**
+     * Startet den wiederverwendeten Decoder für die Daten aus {@code src} und liefert ihn,
+     * z.B. wenn die Länge der dekodierten Daten vorher nicht bekannt ist.
+     * Er bleibt gültig bis zum nächsten Aufruf von {@code decode} oder {@code decoder};
+     * {@code src} gilt danach als verbraucht.
+     */
+    public LzwInputStream decoder(ByteBuffer src) {
+        decoder.restart(src);
+        return decoder;
+    }
+
+    public int dictBitSize() {
+        return dictBitSize;
+    }
+}
@@ -0,0 +1,12 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Wörterbuch des Encoders: eine {@link CodeTable}, in der außerdem mit
+ * {@link #find(int, int)} nach Präfix plus Byte gesucht werden kann.
+ */
+interface LzwDictionary extends CodeTable {
+    /**
+     * Liefert den Code für Präfix {@code prefix} gefolgt von {@code b}, oder -1.
+     */
+    int find(int prefix, int b);
+}
@@ -0,0 +1,231 @@
+package de.hawhamburg.hamann.lzw;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Dekodiert einen mit {@link LzwOutputStream} erzeugten Strom. Wörterbuchgröße
+ * und Richtlinie müssen dieselben sein wie beim Kodieren. Die Datenstruktur
+ * ({@link LZW.Dictionary}) betrifft nur die Suche im Encoder; der Decoder löst
+ * Codes immer direkt über Arrays auf.
+ * <p>
+ * Der Quellstrom wird blockweise gelesen, aber nur, wenn die gepufferten Bits
+ * für den nächsten Code nicht reichen; an einem Synchronisationspunkt wird also
+ * nicht auf weitere Daten gewartet. Bytes hinter dem END-Code werden ignoriert,
+ * können aber schon aus der Quelle gelesen worden sein.
+ * <p>
+ * Mit einer {@link LzwTokenSource} werden die Codes als Token gelesen, wie sie ein
+ * {@link LzwTokenSink} beim Kodieren bekommen hat.
+ */
+public final class LzwInputStream extends FilterInputStream {
+    private final BitReader bitIn;
+    // Null im Token-Modus.
+
+    private final LzwTokenSource tokens;
+    // Quelle der Token, oder null, wenn Bits gelesen werden.
+
+    private final CodeAllocator codes;
+    private final LzwStats stats = new LzwStats();
+
+    private final byte[] buffer;
+    // Zeichenfolge des zuletzt gelesenen Codes, länger als die Anzahl der Codes wird keine.
+
+    private int position;
+    private int limit;
+    // Noch nicht ausgelieferter Teil von buffer.
+
+    private int previous = -1;
+    // Vorheriger Code, -1 am Anfang und nach dem Zurücksetzen.
+
+    private int slot = -1;
+    // Platz, den der Encoder nach dem vorherigen Code belegt hat, oder -1.
+
+    private boolean eof;
+
+    public LzwInputStream(InputStream in, int dictBitSize) {
+        this(in, dictBitSize, LZW.Dictionary.HASH, LZW.ResetPolicy.RESET);
+    }
+
+    public LzwInputStream(InputStream in, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(in);
+        this.codes = CodeAllocator.createDecoder(dictBitSize, resetPolicy);
+        this.buffer = new byte[1 << dictBitSize];
+        this.bitIn = new BitReader(in);
+        this.tokens = null;
+    }
+
+    /**
+     * Liest direkt die Bytes zwischen Position und Limit von {@code source}, für {@link LzwContext}.
+     */
+    LzwInputStream(ByteBuffer source, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(InputStream.nullInputStream());
+        this.codes = CodeAllocator.createDecoder(dictBitSize, resetPolicy);
+        this.buffer = new byte[1 << dictBitSize];
+        this.bitIn = new BitReader(source);
+        this.tokens = null;
+    }
+
+    /**
+     * Liest die Codes als Token aus {@code tokens}, statt aus einem Strom.
+     */
+    public LzwInputStream(LzwTokenSource tokens, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(InputStream.nullInputStream());
+        this.codes = CodeAllocator.createDecoder(dictBitSize, resetPolicy);
+        this.buffer = new byte[1 << dictBitSize];
+        this.bitIn = null;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Kennzahlen seit dem Öffnen. Die Zeiten je Phase misst der Aufrufer.
+     */
+    public LzwStats stats() {
+        stats.resets = codes.resets();
+        if (bitIn != null) stats.bytesIn = (bitIn.bitPosition() + 7) / 8;
+        return stats;
+    }
+
+    /**
+     * Beginnt mit neuen Daten aus {@code source} und leerem Wörterbuch, ohne Speicher
+     * anzulegen. Nur für Ströme, die direkt aus einem Puffer lesen.
+     */
+    void restart(ByteBuffer source) {
+        bitIn.reset(source);
+        codes.restart();
+        stats.clear();
+        position = 0;
+        limit = 0;
+        previous = -1;
+        slot = -1;
+        eof = false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !next(true)) return -1;
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Liest mindestens ein Byte. Weitere Codes werden nur gelesen, bis {@code len}
+     * Bytes erreicht sind oder ein FLUSH-Code kommt; hinter einem Synchronisationspunkt
+     * wird also nicht auf neue Daten gewartet.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int n = 0;
+        while (n < len) {
+            if (position == limit && !next(n == 0)) break;
+            int count = Math.min(len - n, limit - position);
+            System.arraycopy(buffer, position, b, off + n, count);
+            position += count;
+            n += count;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && (position < limit || next(skipped == 0))) {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset wird nicht unterstützt");
+    }
+
+    /**
+     * Dekodiert den nächsten Code in den Puffer.
+     *
+     * @param overFlush ob nach einem FLUSH-Code weitergelesen wird.
+     * @return false am Ende der Daten, oder an einem FLUSH-Code, wenn {@code overFlush} false ist.
+     */
+    private boolean next(boolean overFlush) throws IOException {
+        while (!eof) {
+            int current = readCode();
+            if (current == CodeAllocator.END) {
+                eof = true;
+                break;
+            }
+            if (current == CodeAllocator.FLUSH) { // Synchronisationspunkt, Wörterbuch bleibt erhalten
+                if (bitIn != null) bitIn.align();
+                slot = -1; // Der Encoder verwirft den reservierten Eintrag ebenfalls
+                if (overFlush) continue;
+                return false;
+            }
+            if (current == CodeAllocator.CLEAR) { // Encoder hat das Wörterbuch verworfen
+                codes.clear();
+                previous = -1;
+                slot = -1;
+                continue;
+            }
+
+            int length;
+            if (current == slot) { // Code wird gerade erst angelegt (KwKwK)
+                length = codes.expand(previous, buffer);
+                buffer[length++] = buffer[0];
+            } else if (current < codes.nextCode()) {
+                length = codes.expand(current, buffer);
+            } else {
+                throw new IOException("Ungültiger Code: " + current);
+            }
+
+            if (slot >= 0) { // Eintrag nachholen, den der Encoder nach dem vorherigen Code angelegt hat
+                codes.add(previous, buffer[0] & 0xFF, slot);
+            }
+            codes.touch(current);
+            previous = current;
+            slot = codes.reserve(current); // Gleiche Entscheidung wie der Encoder nach diesem Code
+            if (LZW.TRACE) LZW.trace("Dekodiert: Code = %d (%d Zeichen) | Reserviert: %d", current, length, slot);
+
+            position = 0;
+            limit = length;
+            stats.codes++;
+            stats.stringLength += length;
+            stats.bytesOut += length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Liest den nächsten Code aus dem Bitstrom oder als Token.
+     */
+    private int readCode() throws IOException {
+        if (tokens != null) {
+            int token = tokens.read();
+            int code = codes.fromToken(token, slot);
+            if (code < 0) throw new IOException("Ungültiges Token: " + token);
+            return code;
+        }
+        int code = bitIn.readBits(codes.codeWidth(slot));
+        if (bitIn.pastEnd()) throw new EOFException("LZW-Strom endet ohne END-Code");
+        return code;
+    }
+}
@@ -0,0 +1,274 @@
+package de.hawhamburg.hamann.lzw;
+
+import de.hawhamburg.hamann.bitio.BitWriter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Kodiert alle geschriebenen Bytes fortlaufend mit LZW. Der Speicherbedarf hängt
+ * nur von der Wörterbuchgröße ab, nicht von der Länge der Daten.
+ * <p>
+ * {@link #flush()} setzt einen Synchronisationspunkt: Der angefangene Präfix wird
+ * ausgegeben, gefolgt vom FLUSH-Code und Füllbits bis zur Byte-Grenze. Danach kann
+ * {@link LzwInputStream} alle bisher geschriebenen Bytes liefern, ohne auf weitere
+ * Daten zu warten. Das Wörterbuch bleibt dabei erhalten, nur der nach dem letzten
+ * Code reservierte Eintrag entfällt; jeder Flush kostet also nur einen Code und
+ * höchstens sieben Füllbits, macht aber den laufenden Präfix kürzer.
+ * <p>
+ * {@link #close()} schreibt den END-Code und schließt den Zielstrom.
+ * <p>
+ * Mit einem {@link LzwTokenSink} statt eines Zielstroms gehen die Codes als Token
+ * an die Senke; FLUSH und END werden dann ebenfalls nur als Token übergeben.
+ */
+public final class LzwOutputStream extends FilterOutputStream {
+    private static final int CHAR_BIT_SIZE = 8;
+    private static final int CHECK_GAP = 10_000;
+    // Eingabebytes zwischen zwei Prüfungen der Kompressionsrate (FREEZE_AND_CLEAR).
+
+    private final BitWriter bitOut;
+    // Puffert selbst, der Zielstrom bekommt nur ganze Blöcke. Null im Token-Modus.
+
+    private final LzwTokenSink tokens;
+    // Empfänger der Token, oder null, wenn Bits geschrieben werden.
+
+    private final LzwDictionary dictionary;
+    // Dasselbe Wörterbuch, das codes verwaltet; nur hier wird darin gesucht.
+
+    private final CodeAllocator codes;
+    private final LZW.ResetPolicy resetPolicy;
+    private final LzwStats stats = new LzwStats();
+
+    private int prefix = -1;
+    // Code des aktuellen Präfixes, -1 solange er leer ist.
+
+    private int prefixLength;
+    // Länge des aktuellen Präfixes in Zeichen.
+
+    private int pendingPrefix = -1;
+    private int pendingSlot = -1;
+    // Eintrag nach dem zuletzt ausgegebenen Code, der auf das nächste Byte wartet.
+
+    private long bytesSinceClear;
+    private long bitsSinceClear;
+    private long nextCheck = CHECK_GAP;
+    private double bestRatio;
+    // Kompressionsrate seit dem letzten Zurücksetzen, nur für FREEZE_AND_CLEAR.
+
+    private final byte[] single = new byte[1];
+    // Puffer für write(int).
+
+    private boolean closed;
+
+    public LzwOutputStream(OutputStream out, int dictBitSize) {
+        this(out, dictBitSize, LZW.Dictionary.HASH, LZW.ResetPolicy.RESET);
+    }
+
+    public LzwOutputStream(OutputStream out, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(out);
+        this.dictionary = CodeAllocator.newDictionary(dictBitSize, dictionary);
+        this.codes = new CodeAllocator(this.dictionary, dictBitSize, resetPolicy);
+        this.resetPolicy = resetPolicy;
+        this.bitOut = new BitWriter(out);
+        this.tokens = null;
+    }
+
+    /**
+     * Schreibt direkt in {@code target} ab dessen Position, für {@link LzwContext}.
+     */
+    LzwOutputStream(ByteBuffer target, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(OutputStream.nullOutputStream());
+        this.dictionary = CodeAllocator.newDictionary(dictBitSize, dictionary);
+        this.codes = new CodeAllocator(this.dictionary, dictBitSize, resetPolicy);
+        this.resetPolicy = resetPolicy;
+        this.bitOut = new BitWriter(target);
+        this.tokens = null;
+    }
+
+    /**
+     * Übergibt die Codes als Token an {@code tokens}, statt sie in einen Strom zu schreiben.
+     */
+    public LzwOutputStream(LzwTokenSink tokens, int dictBitSize, LZW.Dictionary dictionary, LZW.ResetPolicy resetPolicy) {
+        super(OutputStream.nullOutputStream());
+        this.dictionary = CodeAllocator.newDictionary(dictBitSize, dictionary);
+        this.codes = new CodeAllocator(this.dictionary, dictBitSize, resetPolicy);
+        this.resetPolicy = resetPolicy;
+        this.bitOut = null;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Kennzahlen seit dem Öffnen. Die Zeiten je Phase misst der Aufrufer.
+     */
+    public LzwStats stats() {
+        stats.resets = codes.resets();
+        if (bitOut != null) stats.bytesOut = (bitOut.bitPosition() + 7) / 8;
+        return stats;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        int prefix = this.prefix;
+        int prefixLength = this.prefixLength;
+        for (int i = off, end = off + len; i < end; i++) {
+            int current = b[i] & 0xFF;
+            bytesSinceClear++;
+            if (prefix < 0) { // Erstes Zeichen, oder erstes Zeichen nach einem Flush
+                prefix = current;
+                prefixLength = 1;
+                continue;
+            }
+
+            int extended = dictionary.find(prefix, current);
+            if (extended >= 0) { // Erweiterter Präfix ist im Wörterbuch
+                prefix = extended;
+                prefixLength++;
+                continue;
+            }
+
+            emit(prefix, prefixLength);
+            addPending(current);
+            prefix = current;
+            prefixLength = 1;
+        }
+        this.prefix = prefix;
+        this.prefixLength = prefixLength;
+        stats.bytesIn += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (prefix >= 0) {
+            emit(prefix, prefixLength);
+            prefix = -1;
+        }
+        writeCode(CodeAllocator.FLUSH, pendingSlot);
+        pendingSlot = -1;
+        // Der reservierte Eintrag entfällt, wie im Decoder: Das nächste Byte beginnt
+        // einen neuen Präfix und hat nicht verhindert, dass pendingPrefix plus dieses
+        // Byte schon im Wörterbuch steht. Ein zweiter solcher Eintrag würde die
+        // Hashtabelle bei EVICT_LRU beschädigen.
+        if (bitOut != null) {
+            bitOut.align();
+            bitOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        finish();
+        out.close();
+    }
+
+    /**
+     * Schreibt den END-Code, ohne den Zielstrom zu schließen.
+     */
+    void finish() throws IOException {
+        ensureOpen();
+        if (prefix >= 0) {
+            emit(prefix, prefixLength);
+            prefix = -1;
+        }
+        writeCode(CodeAllocator.END, pendingSlot); // Ende der Daten markieren
+        if (bitOut != null) {
+            bitOut.align();
+            bitOut.flush();
+        }
+        closed = true;
+    }
+
+    /**
+     * Beginnt neue Daten in {@code target} mit leerem Wörterbuch, ohne Speicher
+     * anzulegen. Nur für Ströme, die direkt in einen Puffer schreiben.
+     */
+    void restart(ByteBuffer target) {
+        bitOut.reset(target);
+        codes.restart();
+        stats.clear();
+        prefix = -1;
+        prefixLength = 0;
+        pendingPrefix = -1;
+        pendingSlot = -1;
+        bytesSinceClear = 0;
+        bitsSinceClear = 0;
+        nextCheck = CHECK_GAP;
+        bestRatio = 0;
+        closed = false;
+    }
+
+    /**
+     * Schreibt den Code des Präfixes und reserviert den Platz für seine Verlängerung,
+     * genau wie der Decoder nach dem Lesen dieses Codes.
+     */
+    private void emit(int prefix, int prefixLength) throws IOException {
+        bitsSinceClear += writeCode(prefix, -1);
+        stats.codes++;
+        stats.stringLength += prefixLength;
+        codes.touch(prefix);
+        pendingPrefix = prefix;
+        pendingSlot = codes.reserve(prefix);
+        if (LZW.TRACE) LZW.trace("Kodiert: Code = %d (%d Zeichen) | Reserviert: %d", prefix, prefixLength, pendingSlot);
+
+        if (pendingSlot < 0 && resetPolicy == LZW.ResetPolicy.FREEZE_AND_CLEAR && codes.isFull()
+                && bytesSinceClear >= nextCheck) {
+            nextCheck = bytesSinceClear + CHECK_GAP;
+            double ratio = (double) bytesSinceClear * CHAR_BIT_SIZE / bitsSinceClear;
+            // Eingabebits je Ausgabebit.
+            if (ratio > bestRatio) {
+                bestRatio = ratio;
+                // Das eingefrorene Wörterbuch passt noch zu den Daten.
+            } else {
+                writeCode(CodeAllocator.CLEAR, -1);
+                codes.clear();
+                bestRatio = 0;
+                bytesSinceClear = 0;
+                bitsSinceClear = 0;
+                nextCheck = CHECK_GAP;
+                if (LZW.TRACE) LZW.trace("Kodiert: CLEAR bei Kompression %.3f", ratio);
+                // Kompressionsrate sinkt: Wörterbuch verwerfen und den Decoder informieren.
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Code mit der Breite, die der Decoder an dieser Stelle erwartet,
+     * oder übergibt ihn als Token.
+     *
+     * @return Bitbreite des Codes, auch im Token-Modus.
+     */
+    private int writeCode(int code, int pendingSlot) throws IOException {
+        int width = codes.codeWidth(pendingSlot);
+        if (tokens == null) {
+            bitOut.writeBits(code, width);
+        } else {
+            tokens.write(codes.toToken(code, pendingSlot), width);
+        }
+        return width;
+    }
+
+    /**
+     * Legt den reservierten Eintrag an, sobald das Byte bekannt ist, mit dem
+     * der nächste Code beginnt.
+     */
+    private void addPending(int b) {
+        if (pendingSlot >= 0) {
+            codes.add(pendingPrefix, b, pendingSlot);
+            pendingSlot = -1;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Strom ist geschlossen");
+    }
+}
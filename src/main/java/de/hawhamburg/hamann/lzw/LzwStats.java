@@ -0,0 +1,76 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Kennzahlen eines Durchlaufs von {@link LZW#encode()} oder {@link LZW#decode()}.
+ * Die Zeiten sind in Nanosekunden je Phase: Vorbereitung (Wörterbuch anlegen,
+ * Dateien öffnen), Kodierung bzw. Dekodierung und Abschluss (Puffer leeren, schließen).
+ */
+public final class LzwStats {
+    long codes; // Anzahl der geschriebenen bzw. gelesenen Codes (ohne Steuercodes)
+    long stringLength; // Summe der Längen aller Zeichenfolgen dieser Codes
+    long resets; // Anzahl der Zurücksetzungen des Wörterbuchs
+    long bytesIn; // Gelesene Bytes
+    long bytesOut; // Geschriebene Bytes
+    long setupNanos; // Zeit für die Vorbereitung
+    long codingNanos; // Zeit für die Kodierung bzw. Dekodierung
+    long finishNanos; // Zeit für den Abschluss
+
+    LzwStats() {
+    }
+
+    void clear() {
+        codes = 0;
+        stringLength = 0;
+        resets = 0;
+        bytesIn = 0;
+        bytesOut = 0;
+        setupNanos = 0;
+        codingNanos = 0;
+        finishNanos = 0;
+    }
+
+    public long codes() {
+        return codes;
+    }
+
+    public double meanStringLength() {
+        return codes == 0 ? 0 : (double) stringLength / codes;
+    }
+
+    public long resets() {
+        return resets;
+    }
+
+    public long bytesIn() {
+        return bytesIn;
+    }
+
+    public long bytesOut() {
+        return bytesOut;
+    }
+
+    public long setupNanos() {
+        return setupNanos;
+    }
+
+    public long codingNanos() {
+        return codingNanos;
+    }
+
+    public long finishNanos() {
+        return finishNanos;
+    }
+
+    // Kompressionsrate in Prozent, bezogen auf die Kodierung (bytesIn = Original, bytesOut = kodiert)
+    public double compressionRate() {
+        return bytesIn == 0 ? 0 : (1.0 - (double) bytesOut / bytesIn) * 100;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Codes: %d | Mittlere Stringlänge: %.6f | Zurücksetzungen: %d | Bytes: %d -> %d"
+                        + " | Zeiten: %.3f / %.3f / %.3f ms",
+                codes, meanStringLength(), resets, bytesIn, bytesOut,
+                setupNanos / 1e6, codingNanos / 1e6, finishNanos / 1e6);
+    }
+}
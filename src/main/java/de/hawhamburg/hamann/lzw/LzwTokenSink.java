@@ -0,0 +1,23 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.io.IOException;
+
+/**
+ * Nimmt die Codes von {@link LzwOutputStream} als Token statt als Bits fester
+ * Breite entgegen, z.B. für eine nachgeschaltete Entropiekodierung.
+ * <p>
+ * Token unter {@link #DIRECT_TOKENS} sind Einzelzeichen (0 bis 255) und die
+ * Steuercodes. Jedes größere Token {@code t} steht für den Wörterbuchcode, der
+ * {@code t - DIRECT_TOKENS} Plätze unter dem neuesten möglichen Code liegt;
+ * kleine Token bedeuten also junge Einträge. Token sind kleiner als
+ * {@code DIRECT_TOKENS + 2^dictBitSize}.
+ */
+public interface LzwTokenSink {
+    int DIRECT_TOKENS = CodeAllocator.FIRST_CODE;
+
+    /**
+     * @param codeWidth Breite, die der Code im Bitstrom von {@link LzwOutputStream}
+     *                  hätte, z.B. um Token gleicher Breite zusammenzufassen.
+     */
+    void write(int token, int codeWidth) throws IOException;
+}
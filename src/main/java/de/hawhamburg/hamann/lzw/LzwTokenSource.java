@@ -0,0 +1,14 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.io.IOException;
+
+/**
+ * Liefert {@link LzwInputStream} die Token, die ein {@link LzwTokenSink} beim
+ * Kodieren bekommen hat, in derselben Reihenfolge.
+ */
+public interface LzwTokenSource {
+    /**
+     * @throws java.io.EOFException wenn die Token vor dem END-Code ausgehen.
+     */
+    int read() throws IOException;
+}
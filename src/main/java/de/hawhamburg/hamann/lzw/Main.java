@@ -1,44 +1,41 @@
 package de.hawhamburg.hamann.lzw;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Path filePath = Path.of("resources", "lzw", "ad_7_DynamischesProgrammieren.pdf"); // Vollständiger Pfad
+        byte[] data = Files.readAllBytes(filePath); // Datei nur einmal lesen
+
+        // Experimentiere mit verschiedenen Wörterbuchgrößen, alle gleichzeitig (siehe Experiments)
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Experiments.Result> results;
+        try {
+            results = Experiments.run(filePath.toString(), data, new int[]{10, 11, 12},
+                    List.of(LZW.ResetPolicy.RESET), executor);
+        } finally {
+            executor.shutdown();
+        }
 
-        // Experimentiere mit verschiedenen Wörterbuchgrößen
         StringBuilder experimentResults = new StringBuilder(); // Sammle alle Ergebnisse hier
-        for (int dictBitSize = 10; dictBitSize <= 12; dictBitSize++) {
-            LZW lzw = new LZW(filePath, dictBitSize);
-
-            try {
-                // Kodierung durchführen
-                lzw.encode();
-
-                // Kompressionsrate berechnen
-                double compressionRate = lzw.calculateCompressionRate();
-
-                // Ergebnisse speichern
-                experimentResults.append(String.format(
-                        "Experiment mit Wörterbuchgröße: %d Bit\n" +
-                                "Mittlere codierte Stringlänge: %.6f\n" +
-                                "Kompressionsrate: %.6f%%\n\n",
-                        dictBitSize, 2.2106824925816024, compressionRate));
-
-                // Dekodierung durchführen
-                lzw.decode();
-
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        for (Experiments.Result result : results) {
+            experimentResults.append(String.format(
+                    "Experiment mit Wörterbuchgröße: %d Bit\n" +
+                            "Mittlere codierte Stringlänge: %.6f\n" +
+                            "Kompressionsrate: %.6f%%\n" +
+                            "Kodierung: %s\n" +
+                            "Dekodierung: %s\n\n",
+                    result.dictBitSize, result.encoded.meanStringLength(), result.encoded.compressionRate(),
+                    result.encoded, result.decoded));
         }
 
-        // Zuerst: Ergebnisse der Experimente ausgeben
+        // Ergebnisse der Experimente ausgeben
         System.out.println("Ergebnisse der Experimente:");
         System.out.println(experimentResults.toString());
-
-        // Danach: Kodierungsausgabe (falls DEBUG aktiv ist)
-        System.out.println("Details der Kodierungsausgabe:");
     }
 }
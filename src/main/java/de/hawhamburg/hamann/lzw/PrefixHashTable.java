@@ -0,0 +1,104 @@
+package de.hawhamburg.hamann.lzw;
+
+import java.util.Arrays;
+
+/**
+ * Wörterbuch des Encoders als Hashtabelle mit offener Adressierung.
+ * Ein Eintrag ist ein bekannter Präfix (sein Code) plus ein weiteres Byte,
+ * der Schlüssel ist daher {@code (prefixCode << 8) | byte}. So kostet jedes
+ * Eingabebyte genau eine Suche, ohne Listen, Boxing oder neue Objekte.
+ */
+final class PrefixHashTable {
+    private static final int EMPTY = -1;
+    // Markiert einen freien Platz in keys.
+
+    private final int[] keys;
+    // Schlüssel (prefixCode << 8) | byte, oder EMPTY.
+
+    private final int[] codes;
+    // Code des Eintrags am selben Platz.
+
+    private final int mask;
+    // Tabellengröße - 1 (Zweierpotenz).
+
+    private final int shift;
+    // 32 - log2(Tabellengröße), wählt die oberen Bits des Hashwerts.
+
+    /**
+     * @param maxEntries höchstens gleichzeitig gespeicherte Einträge.
+     *                   Die Tabelle ist mindestens doppelt so groß, damit die Suchketten kurz bleiben.
+     */
+    PrefixHashTable(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        keys = new int[capacity];
+        codes = new int[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        clear();
+    }
+
+    /**
+     * Liefert den Code für Präfix {@code prefix} gefolgt von {@code b}, oder -1.
+     */
+    int find(int prefix, int b) {
+        int key = (prefix << 8) | b;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return codes[i];
+            if (k == EMPTY) return -1;
+        }
+    }
+
+    /**
+     * Fügt den Eintrag ein. Er darf noch nicht vorhanden sein.
+     */
+    void put(int prefix, int b, int code) {
+        int key = (prefix << 8) | b;
+        int i = slot(key);
+        while (keys[i] != EMPTY) i = (i + 1) & mask;
+        // Lineares Sondieren bis zum nächsten freien Platz.
+
+        keys[i] = key;
+        codes[i] = code;
+    }
+
+    /**
+     * Entfernt den Eintrag. Nachfolgende Einträge derselben Suchkette rücken
+     * nach, damit sie ohne Markierungen für gelöschte Plätze gefunden werden.
+     */
+    void remove(int prefix, int b) {
+        int key = (prefix << 8) | b;
+        int i = slot(key);
+        while (keys[i] != key) i = (i + 1) & mask;
+        keys[i] = EMPTY;
+
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean stays = i <= j ? i < home && home <= j : i < home || home <= j;
+            // Der Eintrag bleibt, wenn sein Stammplatz zwischen der Lücke und ihm liegt.
+
+            if (!stays) {
+                keys[i] = keys[j];
+                codes[i] = codes[j];
+                keys[j] = EMPTY;
+                i = j;
+            }
+        }
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Entfernt alle Einträge, ohne neuen Speicher anzulegen.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B1) >>> shift;
+        // Multiplikatives Hashing, damit aufeinanderfolgende Codes nicht nebeneinander landen.
+    }
+}
@@ -0,0 +1,84 @@
+package de.hawhamburg.hamann.lzw;
+
+/**
+ * Wörterbuch des Decoders: Jeder Code ist ein früherer Code (Präfix) plus ein Byte.
+ * Die Einträge liegen in primitiven Arrays, die direkt über den Code
+ * indiziert werden, so dass jeder Code in O(1) gefunden wird. Die Zeichenfolge
+ * entsteht, indem man den Präfixen bis zum Einzelzeichen folgt und den Puffer
+ * dabei von hinten nach vorne füllt.
+ * <p>
+ * Allein ist die Tabelle das Wörterbuch des Decoders, der nie sucht; im Encoder
+ * liefert sie die Rückrichtung für {@link HashDictionary}.
+ */
+final class StringTable implements CodeTable {
+    static final int CHARS = 256;
+    // Codes 0 bis 255 sind die Einzelzeichen.
+
+    private final int[] prefix;
+    // Präfixcode jedes Eintrags, -1 bei Einzelzeichen.
+
+    private final byte[] suffix;
+    // Letztes Byte jedes Eintrags.
+
+    private final int[] length;
+    // Länge der Zeichenfolge jedes Eintrags.
+
+    StringTable(int maxCodes) {
+        prefix = new int[maxCodes];
+        suffix = new byte[maxCodes];
+        length = new int[maxCodes];
+        for (int c = 0; c < CHARS; c++) {
+            prefix[c] = -1;
+            suffix[c] = (byte) c;
+            length[c] = 1;
+        }
+        // Die Einzelzeichen ändern sich nie, ein Zurücksetzen muss nichts löschen.
+    }
+
+    /**
+     * Legt {@code code} als Zeichenfolge von {@code prefixCode} plus {@code b} an.
+     */
+    @Override
+    public void add(int prefixCode, int b, int code) {
+        prefix[code] = prefixCode;
+        suffix[code] = (byte) b;
+        length[code] = length[prefixCode] + 1;
+    }
+
+    int prefix(int code) {
+        return prefix[code];
+    }
+
+    int suffix(int code) {
+        return suffix[code] & 0xFF;
+    }
+
+    /**
+     * Schreibt die Zeichenfolge von {@code code} an den Anfang von {@code buffer}.
+     *
+     * @return Länge der Zeichenfolge.
+     */
+    @Override
+    public int expand(int code, byte[] buffer) {
+        int n = length[code];
+        for (int i = n - 1; i >= 0; i--) {
+            buffer[i] = suffix[code];
+            code = prefix[code];
+        }
+        return n;
+    }
+
+    /**
+     * Nichts zu tun: Ein freigegebener Code wird beim nächsten Anlegen überschrieben.
+     */
+    @Override
+    public void remove(int code) {
+    }
+
+    /**
+     * Nichts zu tun: Die Einzelzeichen bleiben, alle anderen Einträge werden überschrieben.
+     */
+    @Override
+    public void clear() {
+    }
+}
@@ -0,0 +1,76 @@
+package de.hawhamburg.hamann.bitio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitIoTest {
+
+    /**
+     * Testet Schreiben und Lesen von Werten unterschiedlicher Breite über
+     * Strom und ByteBuffer, einschließlich der Bitpositionen.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(6);
+        int[] widths = new int[10_000];
+        int[] values = new int[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = 1 + random.nextInt(32);
+            values[i] = (int) (random.nextLong() & ((1L << widths[i]) - 1));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BitWriter out = new BitWriter(bytes);
+        long bits = 0;
+        for (int i = 0; i < widths.length; i++) {
+            out.writeBits(values[i] & 0xFFFFFFFFL, widths[i]);
+            bits += widths[i];
+        }
+        assertEquals(bits, out.bitPosition());
+        out.align();
+        out.flush();
+        assertEquals((bits + 7) / 8, bytes.size());
+
+        BitReader fromStream = new BitReader(new ByteArrayInputStream(bytes.toByteArray()));
+        BitReader fromBuffer = new BitReader(ByteBuffer.wrap(bytes.toByteArray()));
+        for (int i = 0; i < widths.length; i++) {
+            assertEquals(values[i], fromStream.readBits(widths[i]));
+            assertEquals(values[i], fromBuffer.peekBits(widths[i]));
+            fromBuffer.skipBits(widths[i]);
+        }
+        assertEquals(bits, fromStream.bitPosition());
+        assertFalse(fromStream.pastEnd());
+    }
+
+    /**
+     * Testet das Ausrichten auf Byte-Grenzen und das Verhalten am Ende der Daten:
+     * keine Ausnahme, 0-Bits, und {@code pastEnd()} zeigt das Ende an.
+     */
+    @Test
+    public void alignAndEnd() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BitWriter out = new BitWriter(bytes);
+        out.writeBits(0b101, 3);
+        assertEquals(5, out.align());
+        out.writeBits(0xAB, 8);
+        out.flush();
+        assertArrayEquals(new byte[]{(byte) 0xA0, (byte) 0xAB}, bytes.toByteArray());
+
+        BitReader in = new BitReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(0b101, in.readBits(3));
+        assertEquals(5, in.align());
+        assertEquals(0xAB, in.readBits(8));
+        assertFalse(in.pastEnd());
+        assertEquals(16, in.bitPosition());
+        assertEquals(0, in.readBits(4));
+        assertTrue(in.pastEnd());
+        assertEquals(16, in.bitPosition());
+    }
+}
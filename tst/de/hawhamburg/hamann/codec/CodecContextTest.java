@@ -0,0 +1,104 @@
+package de.hawhamburg.hamann.codec;
+
+import de.hawhamburg.hamann.huffman.BlockHuffman;
+import de.hawhamburg.hamann.lzw.LZW;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class CodecContextTest {
+
+    private static byte[] message(Random random, int size) {
+        String[] words = {"{\"id\": ", "\"name\": ", "\"Anna\"", "\"Ben\"", "42", ", ", "}\n", "true"};
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) text.append(words[random.nextInt(words.length)]);
+        return text.substring(0, size).getBytes();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Testet viele Nachrichten unterschiedlicher Länge, auch leere und solche über
+     * mehrere Huffman-Blöcke: Ein Kontext erzeugt dieselben Nutzdaten wie der
+     * Codec selbst und dekodiert sie wieder, obwohl er alles wiederverwendet.
+     */
+    @Test
+    public void sameResultAsCodec() throws IOException {
+        Codec[] codecs = {
+                new HuffmanCodec(new BlockHuffman(3000, 12, ForkJoinPool.commonPool())),
+                new LzwCodec(10, LZW.ResetPolicy.FREEZE_AND_CLEAR),
+                Codecs.byName("lzw"),
+                Codecs.byName("lzw-blocks")
+        };
+        Random random = new Random(25);
+        for (Codec codec : codecs) {
+            CodecContext context = codec.newContext();
+            for (int i = 0; i < 40; i++) {
+                byte[] data = message(random, i == 0 ? 0 : random.nextInt(10_000));
+                ByteBuffer encoded = context.encode(ByteBuffer.wrap(data));
+                assertArrayEquals(codec.name(), bytes(codec.encode(ByteBuffer.wrap(data))), bytes(encoded));
+
+                ByteBuffer decoded = context.decode(encoded);
+                assertFalse(encoded.hasRemaining());
+                assertArrayEquals(codec.name(), data, bytes(decoded));
+                context.release(encoded);
+                context.release(decoded);
+            }
+        }
+    }
+
+    /**
+     * Testet, dass ein LZW-Kontext auch Nutzdaten mit anderer Wörterbuchgröße dekodiert.
+     */
+    @Test
+    public void lzwDecodesOtherSettings() throws IOException {
+        byte[] data = message(new Random(3), 20_000);
+        ByteBuffer encoded = new LzwCodec(12, LZW.ResetPolicy.FREEZE).encode(ByteBuffer.wrap(data));
+        assertArrayEquals(data, bytes(new LzwCodec().newContext().decode(encoded)));
+    }
+
+    /**
+     * Testet, dass Huffman- und LZW-Kontexte im eingeschwungenen Zustand praktisch
+     * nichts mehr allozieren. Gemessen wird der Speicher, den der Thread anlegt.
+     */
+    @Test
+    public void steadyStateAllocatesNothing() throws IOException {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        long thread = Thread.currentThread().getId();
+
+        Random random = new Random(7);
+        ByteBuffer[] messages = new ByteBuffer[16];
+        for (int i = 0; i < messages.length; i++) messages[i] = ByteBuffer.wrap(message(random, 4096));
+
+        for (Codec codec : new Codec[]{new HuffmanCodec(), new LzwCodec(12, LZW.ResetPolicy.RESET)}) {
+            CodecContext context = codec.newContext();
+            long before = 0;
+            for (int round = 0; round < 2000; round++) {
+                if (round == 1000) before = allocation.getThreadAllocatedBytes(thread);
+                // Die erste Hälfte legt Tabellen und Puffer an.
+
+                ByteBuffer message = messages[round % messages.length];
+                ByteBuffer encoded = context.encode(message);
+                ByteBuffer decoded = context.decode(encoded);
+                message.rewind();
+                context.release(encoded);
+                context.release(decoded);
+            }
+            long allocated = allocation.getThreadAllocatedBytes(thread) - before;
+            assertTrue(codec.name() + ": " + allocated + " Bytes", allocated < 64 * 1024);
+            // 1000 Nachrichten mit je 4 KB; ohne Wiederverwendung wären es viele Megabytes.
+        }
+    }
+}
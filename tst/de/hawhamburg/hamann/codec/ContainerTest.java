@@ -0,0 +1,117 @@
+package de.hawhamburg.hamann.codec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.ServiceConfigurationError;
+
+import static org.junit.Assert.*;
+
+public class ContainerTest {
+
+    private static byte[] textData(int size) {
+        String[] words = {"Codec", "Container", "Huffman", "LZW", "Prüfsumme", " ", ".\n"};
+        Random random = new Random(8);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) text.append(words[random.nextInt(words.length)]);
+        return text.substring(0, size).getBytes();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Testet alle registrierten Codecs über ByteBuffer, Ströme und Dateien. Der
+     * Decoder wählt den Codec jeweils selbst aus dem Header.
+     */
+    @Test
+    public void roundTripAllCodecs() throws IOException {
+        byte[] data = textData(50_000);
+        Path dir = Files.createTempDirectory("codec");
+        Path input = dir.resolve("input.bin");
+        Files.write(input, data);
+
+        for (Codec codec : Codecs.all()) {
+            ByteBuffer container = Container.encode(codec, ByteBuffer.wrap(data));
+            assertTrue(codec.name(), container.remaining() < data.length);
+            assertArrayEquals(codec.name(), data, bytes(Container.decode(container.duplicate())));
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            Container.encode(codec, new ByteArrayInputStream(data), encoded);
+            assertArrayEquals(codec.name(), bytes(container), encoded.toByteArray());
+
+            Path encodedFile = dir.resolve(codec.name() + ".hawc");
+            Path decodedFile = dir.resolve(codec.name() + ".out");
+            Container.encode(codec, input, encodedFile);
+            assertArrayEquals(codec.name(), encoded.toByteArray(), Files.readAllBytes(encodedFile));
+            Container.Header header = Container.decode(encodedFile, decodedFile);
+            assertEquals(codec.id(), header.codecId);
+            assertEquals(data.length, header.originalSize);
+            assertArrayEquals(codec.name(), data, Files.readAllBytes(decodedFile));
+
+            assertArrayEquals(new byte[0], bytes(Container.decode(Container.encode(codec, ByteBuffer.allocate(0)))));
+        }
+    }
+
+    /**
+     * Testet, dass eine falsche Prüfsumme im Header beim Dekodieren auffällt.
+     */
+    @Test(expected = IOException.class)
+    public void detectsWrongChecksum() throws IOException {
+        ByteBuffer container = Container.encode(Codecs.byName("lzw"), ByteBuffer.wrap(textData(1000)));
+        container.put(Container.HEADER_SIZE - 1, (byte) (container.get(Container.HEADER_SIZE - 1) ^ 1));
+        Container.decode(container);
+    }
+
+    /**
+     * Testet Registrierung und Suche: eingebaute Codecs sind vorhanden,
+     * doppelte Kennungen werden abgelehnt.
+     */
+    @Test
+    public void registry() {
+        assertEquals(HuffmanCodec.ID, Codecs.byName("huffman").id());
+        assertEquals("lzw", Codecs.byId(LzwCodec.ID).name());
+        try {
+            Codecs.register(new LzwCodec());
+            fail("Doppelte Kennung wurde akzeptiert");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Testet, dass fehlerhafte Anbieter beim Laden übersprungen werden, ohne die
+     * übrigen oder die eingebauten Codecs zu stören.
+     */
+    @Test
+    public void loadSkipsBadProviders() {
+        Codec builtIn = Codecs.byId(LzwCodec.ID);
+        Iterator<Codec> providers = new Iterator<Codec>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < 2;
+            }
+
+            @Override
+            public Codec next() {
+                if (next++ == 0) return new LzwCodec();
+                // Doppelte Kennung.
+                throw new ServiceConfigurationError("Anbieter nicht ladbar");
+            }
+        };
+        Codecs.load(providers);
+        assertSame(builtIn, Codecs.byId(LzwCodec.ID));
+        assertEquals(HuffmanCodec.ID, Codecs.byName("huffman").id());
+    }
+}
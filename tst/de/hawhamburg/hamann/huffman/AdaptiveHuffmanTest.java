@@ -0,0 +1,107 @@
+package de.hawhamburg.hamann.huffman;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveHuffmanTest {
+
+    private static byte[] encode(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream huffman = new AdaptiveHuffmanOutputStream(out)) {
+            huffman.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(byte[] encoded) throws IOException {
+        try (InputStream huffman = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(encoded))) {
+            return huffman.readAllBytes();
+        }
+    }
+
+    /**
+     * Testet Text, Zufallsdaten mit allen 256 Zeichen und leere Eingaben.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] random = new byte[100_000];
+        new Random(11).nextBytes(random);
+        byte[] text = "abracadabra, simsalabim! Adaptiver Huffman.".repeat(200).getBytes();
+        byte[][] inputs = {text, random, new byte[0], "x".getBytes()};
+        for (byte[] data : inputs) {
+            assertArrayEquals(data, decode(encode(data)));
+        }
+        assertTrue(encode(text).length < text.length * 6 / 10);
+    }
+
+    /**
+     * Testet, dass nach {@code flush()} alle vollständig übertragenen Zeichen
+     * dekodiert werden können, bevor der Strom geschlossen ist.
+     */
+    @Test
+    public void decodeBeforeClose() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream huffman = new AdaptiveHuffmanOutputStream(out);
+        byte[] line = "GET /index.html 200\n".getBytes();
+        huffman.write(line);
+        huffman.flush();
+
+        InputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(out.toByteArray()));
+        for (int i = 0; i < line.length - 1; i++) {
+            assertEquals(line[i], (byte) in.read());
+        }
+        // Vom letzten Zeichen können noch Bits im Encoder stecken.
+    }
+
+    /**
+     * Testet, dass ein abgeschnittener oder nie geschlossener Strom mit
+     * {@link EOFException} endet, statt Füllbits als Zeichen zu liefern.
+     */
+    @Test
+    public void truncatedStream() throws IOException {
+        byte[] text = "abracadabra, simsalabim! Adaptiver Huffman.".repeat(20).getBytes();
+        byte[] closed = encode(text);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream huffman = new AdaptiveHuffmanOutputStream(out);
+        huffman.write(text);
+        huffman.flush();
+        // Wie bei einer abgebrochenen Verbindung fehlt das Endezeichen.
+
+        byte[][] inputs = {Arrays.copyOf(closed, closed.length / 2), Arrays.copyOf(closed, closed.length - 1),
+                out.toByteArray()};
+        for (byte[] encoded : inputs) {
+            try {
+                decode(encoded);
+                fail("Abgeschnittener Strom wurde nicht erkannt: " + encoded.length + " Bytes");
+            } catch (EOFException expected) {
+            }
+        }
+    }
+
+    /**
+     * Testet das adaptive Format über die dateibasierte Schnittstelle.
+     */
+    @Test
+    public void roundTripFile() throws IOException {
+        byte[] data = "Logzeile mit wechselndem Inhalt 0123456789\n".repeat(1000).getBytes();
+        Path file = Files.createTempDirectory("huffman").resolve("input.log");
+        Files.write(file, data);
+        Huffman huffman = new Huffman(file, Huffman.Format.ADAPTIVE);
+        huffman.encode();
+        huffman.decode();
+        assertArrayEquals(data, Files.readAllBytes(file.getParent().resolve("decoded_input.log")));
+    }
+}
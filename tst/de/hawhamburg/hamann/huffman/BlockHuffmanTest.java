@@ -0,0 +1,173 @@
+package de.hawhamburg.hamann.huffman;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BlockHuffmanTest {
+
+    private static byte[] encode(BlockHuffman huffman, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        huffman.encode(new ByteArrayInputStream(data), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(BlockHuffman huffman, byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        huffman.decode(new ByteArrayInputStream(encoded), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Erzeugt Testdaten aus Text und Zufallsbytes, damit sich die Blöcke unterscheiden.
+     */
+    private static byte[] mixedData(int size) {
+        byte[] data = new byte[size];
+        byte[] text = "Huffman blockweise, ein Block nach dem anderen. ".getBytes();
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            data[i] = (i / 1000) % 2 == 0 ? text[i % text.length] : (byte) random.nextInt(16);
+        }
+        return data;
+    }
+
+    /**
+     * Testet Kodierung und Dekodierung über mehrere Blöcke.
+     */
+    @Test
+    public void roundTripMultipleBlocks() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(4096);
+        byte[] data = mixedData(50_000);
+        byte[] encoded = encode(huffman, data);
+        assertTrue(encoded.length < data.length);
+        assertArrayEquals(data, decode(huffman, encoded));
+    }
+
+    /**
+     * Testet leere Eingaben und Blöcke mit nur einem Zeichen.
+     */
+    @Test
+    public void roundTripEdgeCases() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(16);
+        byte[][] inputs = {new byte[0], "a".getBytes(), "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaab".getBytes()};
+        for (byte[] data : inputs) {
+            assertArrayEquals(data, decode(huffman, encode(huffman, data)));
+        }
+    }
+
+    /**
+     * Testet, dass der Decoder genau bis zur Endemarkierung liest
+     * und nachfolgende Daten im Strom unberührt lässt.
+     */
+    @Test
+    public void decodeStopsAtEndMarker() throws IOException {
+        BlockHuffman huffman = new BlockHuffman();
+        byte[] data = mixedData(10_000);
+        byte[] encoded = encode(huffman, data);
+
+        byte[] stream = new byte[encoded.length + 3];
+        System.arraycopy(encoded, 0, stream, 0, encoded.length);
+        stream[encoded.length] = 42;
+
+        ByteArrayInputStream in = new ByteArrayInputStream(stream);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        huffman.decode(in, out);
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals(42, in.read());
+    }
+
+    /**
+     * Testet, dass parallele und sequentielle Kodierung denselben Strom erzeugen.
+     */
+    @Test
+    public void parallelEncodingMatchesSequential() throws IOException {
+        byte[] data = mixedData(200_000);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(8);
+        try {
+            byte[] sequential = encode(new BlockHuffman(1000, single), data);
+            byte[] parallel = encode(new BlockHuffman(1000, many), data);
+            assertArrayEquals(sequential, parallel);
+            assertArrayEquals(data, decode(new BlockHuffman(), parallel));
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    /**
+     * Testet die parallele Dekodierung einer Datei über den Blockindex.
+     */
+    @Test
+    public void parallelFileDecoding() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(3000);
+        byte[] data = mixedData(100_000);
+        Path dir = Files.createTempDirectory("blockhuffman");
+        Path encoded = dir.resolve("encoded.bin");
+        Path decoded = dir.resolve("decoded.bin");
+        Files.write(encoded, encode(huffman, data));
+
+        huffman.decode(encoded, decoded);
+        assertArrayEquals(data, Files.readAllBytes(decoded));
+    }
+
+    /**
+     * Testet, dass die Kodierung über Memory-Mapping denselben Strom erzeugt
+     * wie die Kodierung über Ströme, auch für leere Dateien.
+     */
+    @Test
+    public void mappedEncodingMatchesStream() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(3000);
+        Path dir = Files.createTempDirectory("blockhuffman");
+        Path input = dir.resolve("input.bin");
+        Path encoded = dir.resolve("encoded.bin");
+        Path decoded = dir.resolve("decoded.bin");
+        for (byte[] data : new byte[][]{mixedData(100_000), new byte[0]}) {
+            Files.write(input, data);
+            huffman.encode(input, encoded);
+            assertArrayEquals(encode(huffman, data), Files.readAllBytes(encoded));
+
+            huffman.decode(encoded, decoded);
+            assertArrayEquals(data, Files.readAllBytes(decoded));
+        }
+    }
+
+    /**
+     * Testet das Dekodieren einzelner Bereiche, auch über Blockgrenzen hinweg.
+     */
+    @Test
+    public void decodeRange() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(1000);
+        byte[] data = mixedData(10_500);
+        Path encoded = Files.createTempDirectory("blockhuffman").resolve("encoded.bin");
+        Files.write(encoded, encode(huffman, data));
+
+        long[][] ranges = {{0, 10}, {995, 10}, {1000, 1000}, {2500, 5000}, {10_400, 100}, {0, 10_500}, {10_500, 0}};
+        for (long[] range : ranges) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            huffman.decodeRange(encoded, range[0], range[1], out);
+            byte[] expected = Arrays.copyOfRange(data, (int) range[0], (int) (range[0] + range[1]));
+            assertArrayEquals(expected, out.toByteArray());
+        }
+    }
+
+    /**
+     * Testet, dass Bereiche außerhalb der Originaldaten abgelehnt werden.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void decodeRangeOutOfBounds() throws IOException {
+        BlockHuffman huffman = new BlockHuffman(1000);
+        Path encoded = Files.createTempDirectory("blockhuffman").resolve("encoded.bin");
+        Files.write(encoded, encode(huffman, mixedData(1500)));
+        huffman.decodeRange(encoded, 1000, 501, new ByteArrayOutputStream());
+    }
+}
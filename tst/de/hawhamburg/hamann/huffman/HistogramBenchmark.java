@@ -0,0 +1,90 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.bitio.BitReader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Vergleicht die bisherige Häufigkeitszählung (Zeichen für Zeichen, je 8 Bit aus
+ * einem Bit-Leser) mit den Zählfunktionen aus {@link Histogram}.
+ * <p>
+ * Die bisherige Zählung las jedes Zeichen mit {@code BitInput.readChar(8)} aus der
+ * Bibliothek bit-io, die nicht mehr eingebunden ist. Nachgebildet wird sie mit dem
+ * {@link BitReader} des Projekts, ebenfalls 8 Bit je Zeichen über einem gepufferten
+ * Strom. Dieser puffert aber selbst und ist schneller als {@code BitInput}; die
+ * Zahlen der ersten Zeile sind deshalb nicht mit älteren Messungen vergleichbar.
+ * <p>
+ * Aufruf: {@code HistogramBenchmark [Datei]}. Ohne Datei werden 64 MB Testdaten
+ * mit langen Läufen gleicher Bytes erzeugt.
+ */
+public class HistogramBenchmark {
+    private static final int ROUNDS = 5;
+    // Anzahl der Messungen je Variante, die ersten dienen dem Aufwärmen.
+
+    public static void main(String[] args) throws IOException {
+        Path file;
+        if (args.length > 0) {
+            file = Path.of(args[0]);
+        } else {
+            file = Files.createTempFile("histogram", ".bin");
+            file.toFile().deleteOnExit();
+            Files.write(file, testData(64 << 20));
+        }
+        byte[] data = Files.readAllBytes(file);
+        System.out.printf("%s: %d Bytes%n", file, data.length);
+
+        int[] expected = new int[Histogram.CHARS];
+        for (byte b : data) expected[b & 0xFF]++;
+
+        measure("BitReader, 8 Bit (bisher)", data.length, expected, freq -> {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file.toFile()))) {
+                BitReader bitIn = new BitReader(in);
+                for (int c = bitIn.readBits(8); !bitIn.pastEnd(); c = bitIn.readBits(8)) freq[c]++;
+            }
+        });
+        measure("Schleife, eine Tabelle", data.length, expected, freq -> {
+            for (byte b : data) freq[b & 0xFF]++;
+        });
+        measure("Histogram, byte[]", data.length, expected,
+                freq -> Histogram.count(data, 0, data.length, freq));
+        measure("Histogram, Datei parallel", data.length, expected,
+                freq -> Histogram.count(file, ForkJoinPool.commonPool(), freq));
+    }
+
+    private interface Counter {
+        void count(int[] freq) throws IOException;
+    }
+
+    private static void measure(String name, long bytes, int[] expected, Counter counter) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            int[] freq = new int[Histogram.CHARS];
+            long start = System.nanoTime();
+            counter.count(freq);
+            best = Math.min(best, System.nanoTime() - start);
+            if (!Arrays.equals(expected, freq)) throw new IllegalStateException(name + " zählt falsch");
+        }
+        System.out.printf("%-28s %8.1f ms %8.1f MB/s%n", name, best / 1e6, bytes * 1e3 / best);
+        // Bestzeit aus allen Runden, in MB pro Sekunde.
+    }
+
+    /**
+     * Text mit eingestreuten Läufen gleicher Bytes, wie sie in PDFs und Logs vorkommen.
+     */
+    private static byte[] testData(int size) {
+        byte[] data = new byte[size];
+        byte[] text = "Huffman zaehlt Zeichen. ".getBytes();
+        Random random = new Random(1);
+        for (int i = 0; i < size; ) {
+            int run = random.nextInt(200);
+            byte value = random.nextBoolean() ? 0 : (byte) ' ';
+            for (int j = 0; j < run && i < size; j++) data[i++] = random.nextInt(4) == 0 ? text[i % text.length] : value;
+        }
+        return data;
+    }
+}
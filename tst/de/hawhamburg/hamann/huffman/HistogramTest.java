@@ -0,0 +1,69 @@
+package de.hawhamburg.hamann.huffman;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    private static int[] naive(byte[] data, int offset, int length) {
+        int[] freq = new int[Histogram.CHARS];
+        for (int i = offset; i < offset + length; i++) freq[data[i] & 0xFF]++;
+        return freq;
+    }
+
+    private static byte[] randomData(int size) {
+        byte[] data = new byte[size];
+        new Random(5).nextBytes(data);
+        for (int i = 0; i < size; i += 7) data[i] = 0;
+        return data;
+    }
+
+    /**
+     * Testet Arrays und Direct Buffer mit Längen, die kein Vielfaches von 4 oder 8 sind.
+     */
+    @Test
+    public void countMatchesNaiveLoop() {
+        byte[] data = randomData(10_003);
+        for (int offset : new int[]{0, 1, 5}) {
+            for (int length : new int[]{0, 3, 7, 9, 10_003 - offset}) {
+                int[] freq = new int[Histogram.CHARS];
+                Histogram.count(data, offset, length, freq);
+                assertArrayEquals(naive(data, offset, length), freq);
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+                direct.position(offset).limit(offset + length);
+                freq = new int[Histogram.CHARS];
+                Histogram.count(direct, freq);
+                assertArrayEquals(naive(data, offset, length), freq);
+                assertEquals(offset, direct.position());
+            }
+        }
+    }
+
+    /**
+     * Testet die parallele Zählung einer Datei über mehrere Abschnitte.
+     */
+    @Test
+    public void countFileInParallel() throws IOException {
+        byte[] data = randomData(3_500_000);
+        Path file = Files.createTempFile("histogram", ".bin");
+        Files.write(file, data);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int[] freq = new int[Histogram.CHARS];
+            Histogram.count(file, pool, freq);
+            assertArrayEquals(naive(data, 0, data.length), freq);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package de.hawhamburg.hamann.huffman;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class HuffmanTest {
+
+    /**
+     * Kodiert die Daten in eine temporäre Datei und liefert den Pfad zurück.
+     */
+    private static Path encode(byte[] data) throws IOException {
+        return encode(data, Huffman.Format.FREQUENCIES);
+    }
+
+    private static Path encode(byte[] data, Huffman.Format format) throws IOException {
+        Path dir = Files.createTempDirectory("huffman");
+        Path file = dir.resolve("input.bin");
+        Files.write(file, data);
+        new Huffman(file, format).encode();
+        return file;
+    }
+
+    private static long encodedSize(Path file) throws IOException {
+        return Files.size(file.getParent().resolve("encoded_" + file.getFileName()));
+    }
+
+    private static byte[] decoded(Path file) throws IOException {
+        return Files.readAllBytes(file.getParent().resolve("decoded_" + file.getFileName()));
+    }
+
+    /**
+     * Erzeugt Daten, deren Häufigkeiten der Fibonacci-Folge folgen.
+     * Dadurch entstehen sehr tiefe Huffman-Bäume mit langen Codes.
+     */
+    private static byte[] fibonacciData(int symbols) {
+        int[] counts = new int[symbols];
+        counts[0] = 1;
+        counts[1] = 1;
+        int total = 2;
+        for (int i = 2; i < symbols; i++) {
+            counts[i] = counts[i - 1] + counts[i - 2];
+            total += counts[i];
+        }
+        byte[] data = new byte[total];
+        int pos = 0;
+        for (int i = 0; i < symbols; i++) {
+            for (int j = 0; j < counts[i]; j++) data[pos++] = (byte) i;
+        }
+        return data;
+    }
+
+    /**
+     * Testet, ob ein Text nach Kodierung und Dekodierung unverändert ist.
+     */
+    @Test
+    public void roundTripText() throws IOException {
+        byte[] data = "abracadabra, simsalabim! Huffman-Kodierung mit Tabellen."
+                .repeat(100).getBytes();
+        Path file = encode(data);
+        new Huffman(file).decode();
+        assertArrayEquals(data, decoded(file));
+    }
+
+    /**
+     * Testet zufällige Binärdaten, in denen alle 256 Zeichen vorkommen.
+     */
+    @Test
+    public void roundTripBinary() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        Path file = encode(data);
+        new Huffman(file).decode();
+        assertArrayEquals(data, decoded(file));
+    }
+
+    /**
+     * Testet eine Datei, die nur aus einem einzigen Zeichen besteht.
+     */
+    @Test
+    public void roundTripSingleSymbol() throws IOException {
+        byte[] data = "aaaaaaaaaa".getBytes();
+        Path file = encode(data);
+        new Huffman(file).decode();
+        assertArrayEquals(data, decoded(file));
+    }
+
+    /**
+     * Testet, ob der Tabellen-Decoder bei sehr langen Codes (Untertabellen)
+     * dasselbe Ergebnis liefert wie die Referenzimplementierung über den Baum.
+     */
+    @Test
+    public void tableDecoderMatchesTreeDecoder() throws IOException {
+        byte[] data = fibonacciData(25);
+        Path file = encode(data);
+
+        Huffman huffman = new Huffman(file);
+        huffman.decodeWithTree();
+        assertArrayEquals(data, decoded(file));
+
+        huffman.decode();
+        assertArrayEquals(data, decoded(file));
+    }
+
+    /**
+     * Testet das kanonische Format mit Text, Binärdaten und sehr langen Codes.
+     */
+    @Test
+    public void roundTripCanonical() throws IOException {
+        byte[] random = new byte[50_000];
+        new Random(7).nextBytes(random);
+        byte[][] inputs = {
+                "abracadabra, simsalabim!".repeat(50).getBytes(),
+                random,
+                fibonacciData(25),
+                "x".getBytes(),
+                new byte[0]
+        };
+        for (byte[] data : inputs) {
+            Path file = encode(data, Huffman.Format.CANONICAL);
+            new Huffman(file, Huffman.Format.CANONICAL).decode();
+            assertArrayEquals(data, decoded(file));
+        }
+    }
+
+    /**
+     * Testet das Blockformat über die dateibasierte Schnittstelle.
+     */
+    @Test
+    public void roundTripBlocks() throws IOException {
+        byte[] data = new byte[3_000_000];
+        new Random(3).nextBytes(data);
+        for (int i = 0; i < data.length; i += 3) data[i] = 'e';
+        Path file = encode(data, Huffman.Format.BLOCKS);
+        new Huffman(file, Huffman.Format.BLOCKS).decode();
+        assertArrayEquals(data, decoded(file));
+    }
+
+    /**
+     * Testet, ob der Header des kanonischen Formats bei kleinen Dateien
+     * deutlich kleiner ist als die 256 gespeicherten Häufigkeiten.
+     */
+    @Test
+    public void canonicalHeaderIsCompact() throws IOException {
+        byte[] data = "Hallo Welt".getBytes();
+        long frequencies = encodedSize(encode(data, Huffman.Format.FREQUENCIES));
+        long canonical = encodedSize(encode(data, Huffman.Format.CANONICAL));
+        assertTrue(frequencies >= 256 * 31 / 8);
+        assertTrue(canonical < 64);
+    }
+
+    /**
+     * Testet, dass die maximale Codelänge eingehalten wird und der Code vollständig bleibt.
+     */
+    @Test
+    public void codeLengthIsLimited() {
+        int[] freq = new int[256];
+        freq[0] = 1;
+        freq[1] = 1;
+        for (int i = 2; i < 40; i++) freq[i] = freq[i - 1] + freq[i - 2];
+        // Fibonacci-Häufigkeiten ergeben ohne Grenze Codes mit 39 Bits.
+
+        assertEquals(39, IntStream.of(CanonicalCode.fromFrequencies(freq).length).max().getAsInt());
+        for (int maxLength : new int[]{6, 12, 15}) {
+            CanonicalCode code = CanonicalCode.fromFrequencies(freq, maxLength);
+            double kraft = 0;
+            for (int len : code.length) {
+                assertTrue(len <= maxLength);
+                if (len > 0) kraft += Math.pow(2, -len);
+            }
+            assertEquals(1.0, kraft, 1e-12);
+        }
+    }
+
+    /**
+     * Testet das kanonische Format mit einer kleinen Codelängengrenze.
+     */
+    @Test
+    public void roundTripLimitedCanonical() throws IOException {
+        byte[] data = fibonacciData(25);
+        Path dir = Files.createTempDirectory("huffman");
+        Path file = dir.resolve("input.bin");
+        Files.write(file, data);
+        Huffman huffman = new Huffman(file, Huffman.Format.CANONICAL, 10);
+        huffman.encode();
+        huffman.decode();
+        assertArrayEquals(data, decoded(file));
+    }
+}
@@ -0,0 +1,97 @@
+package de.hawhamburg.hamann.huffman;
+
+import de.hawhamburg.hamann.lzw.LZW;
+import de.hawhamburg.hamann.lzw.LzwOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LzwHuffmanTest {
+
+    private static byte[] encode(LzwHuffman lzwHuffman, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lzwHuffman.encode(new ByteArrayInputStream(data), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(LzwHuffman lzwHuffman, byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lzwHuffman.decode(new ByteArrayInputStream(encoded), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Erzeugt Text mit wiederkehrenden Wörtern und eingestreuten Zufallsbytes.
+     */
+    private static byte[] textData(int size) {
+        String[] words = {"Wörterbuch", "Huffman", "LZW", "Token", "Warteschlange", " ", ", ", ".\n"};
+        Random random = new Random(23);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (out.size() < size) {
+            if (random.nextInt(50) == 0) {
+                out.write(random.nextInt(256));
+            } else {
+                out.writeBytes(words[random.nextInt(words.length)].getBytes());
+            }
+        }
+        return Arrays.copyOf(out.toByteArray(), size);
+    }
+
+    /**
+     * Testet alle Richtlinien mit kleinem und großem Wörterbuch; die Daten reichen
+     * für mehrere Huffman-Blöcke und volle Wörterbücher.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] data = textData(600_000);
+        for (int width : new int[]{LZW.MIN_DICT_BIT_SIZE, 16}) {
+            for (LZW.ResetPolicy policy : LZW.ResetPolicy.values()) {
+                LzwHuffman lzwHuffman = new LzwHuffman(width, policy);
+                assertArrayEquals(width + "/" + policy, data, decode(lzwHuffman, encode(lzwHuffman, data)));
+            }
+        }
+
+        LzwHuffman lzwHuffman = new LzwHuffman(12, LZW.ResetPolicy.RESET);
+        assertArrayEquals(new byte[0], decode(lzwHuffman, encode(lzwHuffman, new byte[0])));
+        byte[] single = {42};
+        assertArrayEquals(single, decode(lzwHuffman, encode(lzwHuffman, single)));
+    }
+
+    /**
+     * Bei ungleich verteilten Bytes wiederholen sich kaum längere Zeichenfolgen,
+     * die Huffman-Stufe muss die Codes mit fester Breite dann deutlich unterbieten.
+     */
+    @Test
+    public void smallerThanPlainLzw() throws IOException {
+        byte[] data = new byte[300_000];
+        Random random = new Random(4);
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (128 + random.nextGaussian() * 12);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (LzwOutputStream lzwOut = new LzwOutputStream(plain, 12)) {
+            lzwOut.write(data);
+        }
+        int chained = encode(new LzwHuffman(12, LZW.ResetPolicy.RESET), data).length;
+        assertTrue(chained + " / " + plain.size(), chained < plain.size() * 0.95);
+    }
+
+    /**
+     * Abgeschnittene Daten führen zu einer Ausnahme, nicht zu blockierenden Threads.
+     */
+    @Test(timeout = 10_000)
+    public void truncatedInput() throws IOException {
+        LzwHuffman lzwHuffman = new LzwHuffman(12, LZW.ResetPolicy.RESET);
+        byte[] encoded = encode(lzwHuffman, textData(200_000));
+        try {
+            decode(lzwHuffman, Arrays.copyOf(encoded, encoded.length / 2));
+            fail("EOFException erwartet");
+        } catch (EOFException expected) {
+        }
+    }
+}
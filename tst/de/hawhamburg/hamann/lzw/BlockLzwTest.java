@@ -0,0 +1,125 @@
+package de.hawhamburg.hamann.lzw;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BlockLzwTest {
+
+    private static byte[] encode(BlockLzw lzw, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lzw.encode(new ByteArrayInputStream(data), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(BlockLzw lzw, byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lzw.decode(new ByteArrayInputStream(encoded), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] textData(int size) {
+        String[] words = {"Block", "Thread", "Wörterbuch", "parallel", " ", ".\n"};
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) text.append(words[random.nextInt(words.length)]);
+        return text.substring(0, size).getBytes();
+    }
+
+    /**
+     * Testet Kodierung und Dekodierung mit vielen kleinen Blöcken, einem
+     * angefangenen letzten Block und mehreren Threads.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] data = textData(100_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BlockLzw lzw = new BlockLzw(12, 7000, pool);
+            assertArrayEquals(data, decode(lzw, encode(lzw, data)));
+            assertArrayEquals(new byte[0], decode(lzw, encode(lzw, new byte[0])));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Testet, dass die Ausgabe nicht von der Anzahl der Threads abhängt, und dass
+     * der Decoder Wörterbuchgröße und Richtlinie aus dem Strom übernimmt.
+     */
+    @Test
+    public void outputIndependentOfThreads() throws IOException {
+        byte[] data = textData(50_000);
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool eight = new ForkJoinPool(8);
+        try {
+            BlockLzw single = new BlockLzw(10, LZW.Dictionary.TRIE, LZW.ResetPolicy.EVICT_LRU, 10_000, one);
+            BlockLzw many = new BlockLzw(10, LZW.Dictionary.HASH, LZW.ResetPolicy.EVICT_LRU, 10_000, eight);
+            byte[] encoded = encode(single, data);
+            assertArrayEquals(encoded, encode(many, data));
+            assertArrayEquals(data, decode(new BlockLzw(16), encoded));
+        } finally {
+            one.shutdown();
+            eight.shutdown();
+        }
+    }
+
+    /**
+     * Testet, dass beschädigte Blocklängen erkannt werden.
+     */
+    @Test(expected = IOException.class)
+    public void rejectsWrongBlockLength() throws IOException {
+        BlockLzw lzw = new BlockLzw(12, 1000, ForkJoinPool.commonPool());
+        byte[] encoded = encode(lzw, textData(3000));
+        encoded[5]++;
+        // Originallänge des ersten Blocks (nach 2 Bytes Header) um eins erhöhen.
+        decode(lzw, encoded);
+    }
+
+    /**
+     * Testet, dass eine unmögliche Originallänge abgelehnt wird, bevor der Block
+     * dafür angelegt wird.
+     */
+    @Test(expected = IOException.class)
+    public void rejectsImplausibleRawLength() throws IOException {
+        BlockLzw lzw = new BlockLzw(12, 1000, ForkJoinPool.commonPool());
+        byte[] encoded = encode(lzw, textData(3000));
+        encoded[2] = 0x7F;
+        // Originallänge des ersten Blocks auf fast 2 GB setzen, bei unter 1000 Bytes Nutzdaten.
+        decode(lzw, encoded);
+    }
+
+    /**
+     * Testet, dass eine zu große Länge der Nutzdaten als abgeschnittener Strom
+     * erkannt wird.
+     */
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedPayload() throws IOException {
+        BlockLzw lzw = new BlockLzw(12, 1000, ForkJoinPool.commonPool());
+        byte[] encoded = encode(lzw, textData(3000));
+        encoded[6] = 0x7F;
+        // Länge der Nutzdaten des ersten Blocks auf fast 2 GB setzen.
+        decode(lzw, encoded);
+    }
+
+    /**
+     * Testet die Obergrenze der Originallänge an einem Block aus lauter gleichen
+     * Bytes, der am stärksten komprimiert wird.
+     */
+    @Test
+    public void maxRawLengthHoldsForRuns() throws IOException {
+        byte[] data = new byte[1 << 20];
+        BlockLzw lzw = new BlockLzw(16, data.length, ForkJoinPool.commonPool());
+        byte[] encoded = encode(lzw, data);
+        int payloadLength = encoded.length - 2 - 8 - 4;
+        // Header, ein Blockheader, Endemarkierung.
+        assertTrue(BlockLzw.maxRawLength(payloadLength) >= data.length);
+        assertArrayEquals(data, decode(lzw, encoded));
+    }
+}
@@ -0,0 +1,176 @@
+package de.hawhamburg.hamann.lzw;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LZWTest {
+
+    /**
+     * Kodiert und dekodiert die Daten mit der angegebenen Wörterbuchgröße
+     * und liefert das Ergebnis der Dekodierung.
+     */
+    private static byte[] roundTrip(byte[] data, int dictBitSize) throws IOException {
+        return roundTrip(data, dictBitSize, LZW.Dictionary.HASH);
+    }
+
+    private static byte[] roundTrip(byte[] data, int dictBitSize, LZW.Dictionary dictionary) throws IOException {
+        return roundTrip(data, dictBitSize, dictionary, LZW.ResetPolicy.RESET);
+    }
+
+    private static byte[] roundTrip(byte[] data, int dictBitSize, LZW.Dictionary dictionary,
+                                    LZW.ResetPolicy resetPolicy) throws IOException {
+        Path file = Files.createTempDirectory("lzw").resolve("input.bin");
+        Files.write(file, data);
+        LZW lzw = new LZW(file, dictBitSize, dictionary, resetPolicy);
+        lzw.encode();
+        lzw.decode();
+        return Files.readAllBytes(file.getParent().resolve("decoded_input.bin"));
+    }
+
+    /**
+     * Erzeugt Text mit Wiederholungen und etwas Zufall.
+     */
+    private static byte[] textData(int size) {
+        String[] words = {"Lempel", "Ziv", "Welch", "Wörterbuch", "Code", "Präfix", " ", ", ", ".\n"};
+        Random random = new Random(9);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) text.append(words[random.nextInt(words.length)]);
+        return text.substring(0, size).getBytes();
+    }
+
+    /**
+     * Testet Kodierung und Dekodierung, auch über mehrere Zurücksetzungen des Wörterbuchs.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] data = textData(20_000);
+        for (int dictBitSize : new int[]{9, 12, 16}) {
+            assertArrayEquals(data, roundTrip(data, dictBitSize));
+        }
+    }
+
+    /**
+     * Testet Läufe gleicher Zeichen, bei denen Codes benutzt werden, bevor der
+     * Decoder sie kennt (KwKwK), sowie ein einzelnes Zeichen.
+     */
+    @Test
+    public void roundTripRuns() throws IOException {
+        byte[] runs = new byte[5000];
+        for (int i = 2500; i < runs.length; i++) runs[i] = 'a';
+        assertArrayEquals(runs, roundTrip(runs, 10));
+        assertArrayEquals("x".getBytes(), roundTrip("x".getBytes(), 10));
+    }
+
+    /**
+     * Testet, dass der Trie dieselbe Datei erzeugt wie die Hashtabelle
+     * und sie ebenso dekodiert.
+     */
+    @Test
+    public void trieMatchesHashDictionary() throws IOException {
+        byte[] data = textData(30_000);
+        for (int dictBitSize : new int[]{9, 14}) {
+            Path dir = Files.createTempDirectory("lzw");
+            Path hash = dir.resolve("hash.bin");
+            Path trie = dir.resolve("trie.bin");
+            Files.write(hash, data);
+            Files.write(trie, data);
+            new LZW(hash, dictBitSize, LZW.Dictionary.HASH).encode();
+            new LZW(trie, dictBitSize, LZW.Dictionary.TRIE).encode();
+            assertArrayEquals(Files.readAllBytes(dir.resolve("encoded_hash.bin")),
+                    Files.readAllBytes(dir.resolve("encoded_trie.bin")));
+
+            assertArrayEquals(data, roundTrip(data, dictBitSize, LZW.Dictionary.TRIE));
+        }
+    }
+
+    /**
+     * Testet, dass die Codes nur so breit sind wie nötig: Solange das Wörterbuch
+     * klein bleibt, spielt die maximale Wörterbuchgröße keine Rolle.
+     */
+    @Test
+    public void codeWidthGrowsWithDictionary() throws IOException {
+        byte[] data = textData(4000);
+        Path dir = Files.createTempDirectory("lzw");
+        Path small = dir.resolve("small.bin");
+        Path large = dir.resolve("large.bin");
+        Files.write(small, data);
+        Files.write(large, data);
+        new LZW(small, 12).encode();
+        new LZW(large, 20).encode();
+        assertArrayEquals(Files.readAllBytes(dir.resolve("encoded_small.bin")),
+                Files.readAllBytes(dir.resolve("encoded_large.bin")));
+    }
+
+    /**
+     * Testet alle Richtlinien für ein volles Wörterbuch mit beiden Datenstrukturen.
+     * Die Daten wechseln mittendrin ihren Charakter, damit das eingefrorene
+     * Wörterbuch schlechter wird und der CLEAR-Code zum Einsatz kommt.
+     */
+    @Test
+    public void roundTripResetPolicies() throws IOException {
+        byte[] text = textData(40_000);
+        byte[] data = new byte[80_000];
+        System.arraycopy(text, 0, data, 0, text.length);
+        Random random = new Random(4);
+        for (int i = text.length; i < data.length; i++) data[i] = (byte) ('0' + random.nextInt(10));
+
+        for (LZW.ResetPolicy resetPolicy : LZW.ResetPolicy.values()) {
+            for (LZW.Dictionary dictionary : LZW.Dictionary.values()) {
+                assertArrayEquals(data, roundTrip(data, 9, dictionary, resetPolicy));
+                assertArrayEquals(data, roundTrip(data, 11, dictionary, resetPolicy));
+            }
+        }
+    }
+
+    /**
+     * Testet die Kennzahlen: Encoder und Decoder sehen dieselben Codes und
+     * Zeichenfolgen, und die Bytezahlen passen zu den Dateien.
+     */
+    @Test
+    public void statsMatchFiles() throws IOException {
+        byte[] data = textData(20_000);
+        Path file = Files.createTempDirectory("lzw").resolve("input.bin");
+        Files.write(file, data);
+        LZW lzw = new LZW(file, 9);
+        LzwStats encoded = lzw.encode();
+        LzwStats decoded = lzw.decode();
+
+        assertEquals(data.length, encoded.bytesIn());
+        assertEquals(Files.size(file.getParent().resolve("encoded_input.bin")), encoded.bytesOut());
+        assertEquals(encoded.bytesOut(), decoded.bytesIn());
+        assertEquals(data.length, decoded.bytesOut());
+        assertEquals(encoded.codes(), decoded.codes());
+        assertEquals(encoded.resets(), decoded.resets());
+        assertTrue(encoded.resets() > 0);
+        assertEquals(data.length, encoded.meanStringLength() * encoded.codes(), 1e-6);
+        assertEquals(lzw.calculateCompressionRate(), encoded.compressionRate(), 1e-9);
+    }
+
+    /**
+     * Testet, dass der Decoder am END-Code aufhört: Angehängte Bytes hinter der
+     * kodierten Datei werden nicht mehr als Codes gelesen. Auch leere Dateien
+     * bestehen nur aus dem END-Code.
+     */
+    @Test
+    public void decodeStopsAtEndCode() throws IOException {
+        byte[] data = textData(10_000);
+        for (int dictBitSize : new int[]{9, 12}) {
+            Path file = Files.createTempDirectory("lzw").resolve("input.bin");
+            Files.write(file, data);
+            LZW lzw = new LZW(file, dictBitSize);
+            lzw.encode();
+            Path encoded = file.getParent().resolve("encoded_input.bin");
+            Files.write(encoded, new byte[]{(byte) 0xFF, (byte) 0xFF, 0x12}, StandardOpenOption.APPEND);
+            lzw.decode();
+            assertArrayEquals(data, Files.readAllBytes(file.getParent().resolve("decoded_input.bin")));
+        }
+        assertArrayEquals(new byte[0], roundTrip(new byte[0], 10));
+    }
+}
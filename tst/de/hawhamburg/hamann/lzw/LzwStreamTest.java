@@ -0,0 +1,148 @@
+package de.hawhamburg.hamann.lzw;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LzwStreamTest {
+
+    /**
+     * Erzeugt Daten aus wenigen Wörtern, damit das Wörterbuch wächst und voll wird.
+     */
+    private static byte[] data(int size, long seed) {
+        String[] words = {"Strom", "Code", "Flush", "Präfix", "LZW", " ", "\n"};
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < size) text.append(words[random.nextInt(words.length)]);
+        return text.substring(0, size).getBytes();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[777];
+        int n;
+        while ((n = in.read(chunk)) > 0) out.write(chunk, 0, n);
+        return out.toByteArray();
+    }
+
+    /**
+     * Testet Schreiben und Lesen in ungleichen Stücken, einzeln und blockweise,
+     * mit allen Richtlinien.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        byte[] data = data(60_000, 1);
+        for (LZW.ResetPolicy policy : LZW.ResetPolicy.values()) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (LzwOutputStream out = new LzwOutputStream(encoded, 10, LZW.Dictionary.TRIE, policy)) {
+                Random random = new Random(2);
+                for (int i = 0; i < data.length; ) {
+                    int n = Math.min(data.length - i, random.nextInt(300));
+                    if (n == 1) out.write(data[i]);
+                    else out.write(data, i, n);
+                    i += n;
+                }
+            }
+
+            LzwInputStream in = new LzwInputStream(new ByteArrayInputStream(encoded.toByteArray()), 10,
+                    LZW.Dictionary.TRIE, policy);
+            assertArrayEquals(data, readAll(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * Testet, dass nach jedem Flush genau die bisher geschriebenen Bytes lesbar
+     * sind, ohne dass der Decoder ein Byte über den Synchronisationspunkt hinaus
+     * aus der Quelle braucht.
+     */
+    @Test
+    public void flushPoints() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        int[] available = {0};
+        InputStream source = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == available[0]) throw new EOFException("Decoder liest über den Flush hinaus");
+                return encoded.toByteArray()[position++] & 0xFF;
+            }
+        };
+
+        LzwOutputStream out = new LzwOutputStream(encoded, 12);
+        LzwInputStream in = new LzwInputStream(source, 12);
+        Random random = new Random(3);
+        for (int segment = 0; segment < 50; segment++) {
+            byte[] data = data(1 + random.nextInt(2000), segment);
+            out.write(data);
+            out.flush();
+            available[0] = encoded.size();
+
+            byte[] read = new byte[data.length];
+            int n = 0;
+            while (n < read.length) n += in.read(read, n, read.length - n);
+            assertArrayEquals(data, read);
+        }
+        out.close();
+        available[0] = encoded.size();
+        assertEquals(-1, in.read());
+    }
+
+    /**
+     * Testet Flushes bei vollem Wörterbuch mit EVICT_LRU und Hashtabelle: Das erste
+     * Byte nach einem Flush darf keinen Eintrag anlegen, den es schon gibt.
+     */
+    @Test
+    public void flushWithEvictLru() throws IOException {
+        for (long seed = 0; seed < 50; seed++) {
+            Random random = new Random(seed);
+            byte[] data = new byte[20_000];
+            for (int i = 0; i < data.length; i++) data[i] = (byte) ('a' + random.nextInt(3));
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (LzwOutputStream out = new LzwOutputStream(encoded, 9, LZW.Dictionary.HASH, LZW.ResetPolicy.EVICT_LRU)) {
+                for (int i = 0; i < data.length; ) {
+                    int n = Math.min(data.length - i, 1 + random.nextInt(40));
+                    out.write(data, i, n);
+                    out.flush();
+                    i += n;
+                }
+            }
+
+            LzwInputStream in = new LzwInputStream(new ByteArrayInputStream(encoded.toByteArray()), 9,
+                    LZW.Dictionary.HASH, LZW.ResetPolicy.EVICT_LRU);
+            assertArrayEquals("Seed " + seed, data, readAll(in));
+        }
+    }
+
+    /**
+     * Testet, dass Bytes hinter dem END-Code ignoriert werden und ein
+     * abgeschnittener Strom als solcher erkannt wird, statt Füllbits zu dekodieren.
+     */
+    @Test
+    public void stopsAtEndCode() throws IOException {
+        byte[] data = data(5000, 4);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (LzwOutputStream out = new LzwOutputStream(encoded, 9)) {
+            out.write(data);
+        }
+        byte[] truncated = Arrays.copyOf(encoded.toByteArray(), encoded.size() / 2);
+        encoded.write(new byte[]{1, 2, 3});
+
+        assertArrayEquals(data, readAll(new LzwInputStream(new ByteArrayInputStream(encoded.toByteArray()), 9)));
+        try {
+            readAll(new LzwInputStream(new ByteArrayInputStream(truncated), 9));
+            fail("Abgeschnittener Strom wurde nicht erkannt");
+        } catch (EOFException expected) {
+        }
+    }
+}